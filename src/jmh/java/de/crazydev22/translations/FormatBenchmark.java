@@ -0,0 +1,42 @@
+package de.crazydev22.translations;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    @Param({"0", "1", "3", "10"})
+    public int arguments;
+
+    private String pattern;
+    private Format format;
+    private String[] args;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("<green>Player <gold><lang:rank.name:'x'></gold>");
+        for (int i = 0; i < arguments; i++)
+            builder.append(" <gray>value ").append(i).append(": <white>{").append(i).append('}');
+        pattern = builder.toString();
+        format = new Format(pattern);
+        args = new String[arguments];
+        for (int i = 0; i < arguments; i++)
+            args[i] = "<red>argument " + i;
+    }
+
+    @Benchmark
+    public Format parse() {
+        return new Format(pattern);
+    }
+
+    @Benchmark
+    public String format() {
+        return format.format(args);
+    }
+}
@@ -0,0 +1,52 @@
+package de.crazydev22.translations;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    private static final Locale SWISS = new Locale("de", "CH");
+
+    @Param({"false", "true"})
+    public boolean frozen;
+
+    private final KyoriTranslationRegistry registry = new KyoriTranslationRegistry();
+
+    @Setup
+    public void setup() {
+        registry.defaultLocale(Locale.US);
+        for (int i = 0; i < 1000; i++) {
+            registry.register("key." + i, Locale.US, new Format("English " + i));
+            registry.register("key." + i, Locale.GERMAN, new Format("Deutsch " + i));
+            registry.register("key." + i, Locale.GERMANY, new Format("Deutschland " + i));
+        }
+        if (frozen) registry.freeze();
+    }
+
+    @Benchmark
+    public Format exact() {
+        return registry.translate("key.500", Locale.GERMANY);
+    }
+
+    @Benchmark
+    public Format language() {
+        return registry.translate("key.500", SWISS);
+    }
+
+    @Benchmark
+    public Format defaultLocale() {
+        return registry.translate("key.500", Locale.JAPAN);
+    }
+
+    @Benchmark
+    public Format missingKey() {
+        return registry.translate("missing", Locale.GERMANY);
+    }
+}
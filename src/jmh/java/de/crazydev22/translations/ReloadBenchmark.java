@@ -0,0 +1,66 @@
+package de.crazydev22.translations;
+
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReloadBenchmark {
+    @Param({"50000"})
+    public int keys;
+
+    @Param({"40"})
+    public int locales;
+
+    private Path folder;
+    private TranslationRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("translations");
+        Locale[] available = Locale.getAvailableLocales();
+        for (int i = 0, written = 0; written < locales; i++) {
+            Locale locale = available[i];
+            if (locale.getCountry().isEmpty() || !locale.getVariant().isEmpty() || !locale.getScript().isEmpty())
+                continue;
+            Path file = folder.resolve(locale.getLanguage() + "_" + locale.getCountry() + ".properties");
+            if (Files.exists(file))
+                continue;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int key = 0; key < keys; key++) {
+                    writer.write("plugin.message." + key + "=<green>Message " + key + " for {0}, it's <lang:plugin.rank:{1}>");
+                    writer.newLine();
+                }
+            }
+            written++;
+        }
+        registry = new TranslationRegistry(folder.toFile(), MiniMessage.miniMessage(), Locale.US);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TranslationRegistry reload() {
+        registry.reload();
+        return registry;
+    }
+}
@@ -0,0 +1,55 @@
+package de.crazydev22.translations;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({"1", "4"})
+    public int nesting;
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private TranslationRegistry registry;
+    private Component nested;
+    private Component deep;
+
+    @Setup
+    public void setup() {
+        registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("nested.0", Locale.US, new Format("<yellow>Hello {0}"));
+            for (int i = 1; i < nesting; i++)
+                r.register("nested." + i, Locale.US, new Format("<green>Level " + i + " <lang:nested." + (i - 1) + ":{0}>"));
+            r.register("static", Locale.US, new Format("<gray>Static line"));
+            return true;
+        });
+
+        nested = Component.translatable("nested." + (nesting - 1), Component.text("Steve", NamedTextColor.RED));
+
+        Component tree = Component.translatable("static");
+        for (int i = 0; i < depth; i++)
+            tree = Component.text("line " + i, NamedTextColor.GRAY).append(tree).append(Component.text(" end"));
+        deep = tree;
+    }
+
+    @Benchmark
+    public Component nested() {
+        return registry.render(nested, Locale.US);
+    }
+
+    @Benchmark
+    public Component deep() {
+        return registry.render(deep, Locale.US);
+    }
+}
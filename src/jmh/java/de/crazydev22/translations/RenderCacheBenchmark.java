@@ -0,0 +1,47 @@
+package de.crazydev22.translations;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderCacheBenchmark {
+    @Param({"256", "4096"})
+    public int players;
+
+    private TranslationRegistry registry;
+    private Component[] messages;
+
+    @Setup
+    public void setup() {
+        registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("join", Locale.US, new Format("<yellow>{0} joined the game"));
+            return true;
+        });
+        registry.renderCache(1024);
+
+        messages = new Component[players];
+        for (int i = 0; i < players; i++)
+            messages[i] = Component.translatable("join", Component.text("Player" + i));
+    }
+
+    @Benchmark
+    public Component singleThread() {
+        return registry.render(messages[ThreadLocalRandom.current().nextInt(players)], Locale.US);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Component contended() {
+        return registry.render(messages[ThreadLocalRandom.current().nextInt(players)], Locale.US);
+    }
+}
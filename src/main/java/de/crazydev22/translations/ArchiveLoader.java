@@ -0,0 +1,88 @@
+/*
+Copyright (C) 2024 Julian Krings
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, version 3.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package de.crazydev22.translations;
+
+import lombok.NonNull;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Loads the translation files of a folder inside a jar or zip archive without extracting them.
+ */
+@Log
+public class ArchiveLoader implements Predicate<@NotNull KyoriTranslationRegistry> {
+    private final Path archive;
+    private final String folder;
+
+    public ArchiveLoader(@NonNull Path archive, @NonNull String folder) {
+        this.archive = archive;
+        this.folder = folder.isEmpty() || folder.endsWith("/") ? folder : folder + "/";
+    }
+
+    @Override
+    public boolean test(@NotNull KyoriTranslationRegistry registry) {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            List<ZipEntry> entries = new ArrayList<>();
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                ZipEntry entry = e.nextElement();
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.startsWith(folder) && name.endsWith(FileLoader.EXTENSION)
+                        && name.indexOf('/', folder.length()) == -1)
+                    entries.add(entry);
+            }
+            if (entries.isEmpty()) {
+                log.warning("No translation files found in " + archive + "!/" + folder);
+                return false;
+            }
+            entries.sort(Comparator.comparing(ZipEntry::getName));
+
+            List<Throwable> errors = new ArrayList<>();
+            for (ZipEntry entry : entries) {
+                String name = entry.getName().substring(folder.length());
+                Locale locale = FileLoader.locale(name);
+                if (locale == null) {
+                    log.warning("Failed to parse locale from " + name);
+                    continue;
+                }
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    registry.registerAll(locale, stream, archive.getFileName() + "!/" + entry.getName(), true);
+                } catch (IOException | IllegalArgumentException e) {
+                    errors.add(new IOException("Failed to load " + name, e));
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                IOException exception = new IOException(String.format("Failed to load %d translation file(s)", errors.size()));
+                errors.forEach(exception::addSuppressed);
+                throw exception;
+            }
+            return true;
+        } catch (Throwable e) {
+            log.log(Level.SEVERE, "Failed to load translation files in " + archive + "!/" + folder, e);
+            return false;
+        }
+    }
+}
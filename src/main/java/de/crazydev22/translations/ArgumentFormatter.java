@@ -0,0 +1,117 @@
+package de.crazydev22.translations;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+final class ArgumentFormatter {
+    private static final int MAX_CACHED = 1024;
+    private static final Map<Key, ArgumentFormatter> CACHE = new ConcurrentHashMap<>();
+
+    private final NumberFormat number;
+    private final AtomicReference<NumberFormat> pooled = new AtomicReference<>();
+    private final DateTimeFormatter temporal;
+
+    private ArgumentFormatter(@Nullable NumberFormat number, @Nullable DateTimeFormatter temporal) {
+        this.number = number;
+        this.temporal = temporal;
+    }
+
+    static boolean supported(@NotNull String style) {
+        try {
+            create(Locale.ROOT, style);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static boolean typed(@Nullable Object value) {
+        return value instanceof Number || value instanceof Boolean || value instanceof TemporalAccessor || value instanceof Date;
+    }
+
+    static @NotNull ArgumentFormatter get(@NotNull Locale locale, @NotNull String style) {
+        Key key = new Key(locale, style);
+        ArgumentFormatter formatter = CACHE.get(key);
+        if (formatter != null) return formatter;
+        if (CACHE.size() >= MAX_CACHED) return create(locale, style); // locales are client supplied, keep the cache bounded
+        return CACHE.computeIfAbsent(key, k -> create(k.locale, k.style));
+    }
+
+    private static @NotNull ArgumentFormatter create(@NotNull Locale locale, @NotNull String style) {
+        int comma = style.indexOf(',');
+        String type = (comma == -1 ? style : style.substring(0, comma)).trim().toLowerCase(Locale.ROOT);
+        String modifier = comma == -1 ? null : style.substring(comma + 1).trim();
+        if (modifier != null && modifier.isEmpty()) modifier = null;
+
+        return switch (type) {
+            case "number" -> new ArgumentFormatter(number(locale, modifier), null);
+            case "date" -> new ArgumentFormatter(null, temporal(locale, modifier, DateTimeFormatter::ofLocalizedDate));
+            case "time" -> new ArgumentFormatter(null, temporal(locale, modifier, DateTimeFormatter::ofLocalizedTime));
+            case "datetime" -> new ArgumentFormatter(null, temporal(locale, modifier, DateTimeFormatter::ofLocalizedDateTime));
+            default -> throw new IllegalArgumentException("Unknown argument type: " + type);
+        };
+    }
+
+    private static @NotNull NumberFormat number(@NotNull Locale locale, @Nullable String modifier) {
+        if (modifier == null) return NumberFormat.getNumberInstance(locale);
+        return switch (modifier) {
+            case "integer" -> NumberFormat.getIntegerInstance(locale);
+            case "percent" -> NumberFormat.getPercentInstance(locale);
+            case "currency" -> NumberFormat.getCurrencyInstance(locale);
+            default -> new DecimalFormat(modifier, DecimalFormatSymbols.getInstance(locale));
+        };
+    }
+
+    private static @NotNull DateTimeFormatter temporal(@NotNull Locale locale, @Nullable String modifier, @NotNull Function<FormatStyle, DateTimeFormatter> localized) {
+        DateTimeFormatter formatter = switch (modifier == null ? "medium" : modifier) {
+            case "short" -> localized.apply(FormatStyle.SHORT);
+            case "medium" -> localized.apply(FormatStyle.MEDIUM);
+            case "long" -> localized.apply(FormatStyle.LONG);
+            case "full" -> localized.apply(FormatStyle.FULL);
+            default -> DateTimeFormatter.ofPattern(modifier);
+        };
+        return formatter.withLocale(locale).withZone(ZoneId.systemDefault());
+    }
+
+    @NotNull String format(@Nullable Object value) {
+        if (number != null && value instanceof Number n)
+            return formatNumber(n);
+        if (temporal == null || value instanceof Boolean)
+            return String.valueOf(value);
+
+        try {
+            if (value instanceof Number n) return temporal.format(Instant.ofEpochMilli(n.longValue()));
+            if (value instanceof Date date) return temporal.format(date.toInstant());
+            if (value instanceof TemporalAccessor accessor) return temporal.format(accessor);
+        } catch (DateTimeException ignored) {}
+        return String.valueOf(value);
+    }
+
+    private @NotNull String formatNumber(@NotNull Number value) {
+        NumberFormat format = pooled.getAndSet(null);
+        if (format == null) format = (NumberFormat) number.clone();
+        try {
+            return format.format(value);
+        } finally {
+            pooled.set(format);
+        }
+    }
+
+    private record Key(Locale locale, String style) {}
+}
@@ -0,0 +1,217 @@
+package de.crazydev22.translations;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.TranslationArgument;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+final class ComponentTemplate {
+    private static final char MARKER = '\uE000';
+    private static final char SLOT_BASE = '\uE100';
+    private static final int MAX_SLOTS = 0x0F00;
+    private static final Set<String> TRANSLATABLE_TAGS = Set.of("lang", "tr", "translate");
+    private static final Set<String> TRANSLATABLE_OR_TAGS = Set.of("lang_or", "tr_or", "translate_or");
+
+    private final MiniMessage miniMessage;
+    private final Format format;
+    private final Component tree;
+    private final Set<TranslatableComponent> statics = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ComponentTemplate(MiniMessage miniMessage, Format format, @Nullable Component tree) {
+        this.miniMessage = miniMessage;
+        this.format = format;
+        this.tree = tree;
+        if (tree != null) collectStatics(tree);
+    }
+
+    /**
+     * Collects the nested translatables that contain no argument slot, so they can be expanded once per locale instead of on every render.
+     */
+    private boolean collectStatics(Component component) {
+        boolean dynamic = component instanceof TextComponent text && text.content().indexOf(MARKER) != -1;
+        for (Component child : component.children())
+            dynamic |= !collectStatics(child);
+        if (component instanceof TranslatableComponent translatable) {
+            for (TranslationArgument arg : translatable.arguments()) {
+                if (arg.value() instanceof Component value)
+                    dynamic |= !collectStatics(value);
+            }
+            if (!dynamic) statics.add(translatable); // nested statics are unreachable once this one is expanded
+        }
+        return !dynamic;
+    }
+
+    static @NotNull ComponentTemplate compile(@NotNull Format format, @NotNull MiniMessage miniMessage) {
+        Format.Compiled compiled = format.compiled();
+        String pattern = compiled.pattern;
+        int size = compiled.size();
+        if (size > MAX_SLOTS || pattern.indexOf(MARKER) != -1)
+            return new ComponentTemplate(miniMessage, format, null);
+
+        StringBuilder builder = new StringBuilder(pattern.length() + size * 2);
+        int last = 0;
+        for (int i = 0; i < size; i++) {
+            if (!supported(compiled, i))
+                return new ComponentTemplate(miniMessage, format, null);
+            builder.append(pattern, last, compiled.start(i))
+                    .append(MARKER)
+                    .append((char) (SLOT_BASE + i));
+            last = compiled.end(i);
+        }
+        builder.append(pattern, last, pattern.length());
+        Component tree = miniMessage.deserialize(builder.toString());
+        BitSet slots = new BitSet(size);
+        if (!intact(tree, size, slots) || slots.cardinality() != size)
+            return new ComponentTemplate(miniMessage, format, null);
+        return new ComponentTemplate(miniMessage, format, tree);
+    }
+
+    /**
+     * Checks that every slot survived parsing as a marker directly followed by its slot char.
+     * Tags like gradient or rainbow split their text per code point and tear the pairs apart, those formats keep the string path.
+     */
+    private static boolean intact(Component component, int size, BitSet slots) {
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (c == MARKER) {
+                    int slot = i + 1 < content.length() ? content.charAt(++i) - SLOT_BASE : -1;
+                    if (slot < 0 || slot >= size)
+                        return false;
+                    slots.set(slot);
+                } else if (c >= SLOT_BASE && c < SLOT_BASE + size) {
+                    return false;
+                }
+            }
+        }
+        for (Component child : component.children()) {
+            if (!intact(child, size, slots))
+                return false;
+        }
+        if (component instanceof TranslatableComponent translatable) {
+            for (TranslationArgument arg : translatable.arguments()) {
+                if (arg.value() instanceof Component value && !intact(value, size, slots))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean supported(Format.Compiled compiled, int index) {
+        int tagArgument = compiled.tagArgument(index);
+        if (tagArgument == -1)
+            return true;
+        String tag = compiled.tag(index);
+        if (tag == null)
+            return false;
+        tag = tag.toLowerCase(Locale.ROOT);
+        if (TRANSLATABLE_TAGS.contains(tag))
+            return tagArgument >= 2;
+        return TRANSLATABLE_OR_TAGS.contains(tag) && tagArgument >= 3;
+    }
+
+    @NotNull MiniMessage miniMessage() {
+        return miniMessage;
+    }
+
+    boolean supported() {
+        return tree != null;
+    }
+
+    @NotNull Component apply(@NotNull List<TranslationArgument> args, @NotNull Locale locale, @Nullable Function<TranslatableComponent, Component> expand) {
+        return replace(tree, args, locale, statics.isEmpty() ? null : expand).compact();
+    }
+
+    private Component replace(Component component, List<TranslationArgument> args, Locale locale, @Nullable Function<TranslatableComponent, Component> expand) {
+        if (expand != null && component instanceof TranslatableComponent translatable && statics.contains(translatable))
+            return expand.apply(translatable);
+
+        List<Component> children = component.children();
+        List<Component> replaced = null;
+        for (int i = 0, size = children.size(); i < size; i++) {
+            Component child = children.get(i);
+            Component result = replace(child, args, locale, expand);
+            if (result == child && replaced == null)
+                continue;
+            if (replaced == null)
+                replaced = new ArrayList<>(children.subList(0, i));
+            replaced.add(result);
+        }
+
+        if (component instanceof TextComponent text && text.content().indexOf(MARKER) != -1)
+            return split(text, replaced == null ? children : replaced, args, locale);
+
+        if (component instanceof TranslatableComponent translatable && !translatable.arguments().isEmpty()) {
+            List<TranslationArgument> arguments = translatable.arguments();
+            List<TranslationArgument> replacedArgs = null;
+            for (int i = 0, size = arguments.size(); i < size; i++) {
+                TranslationArgument arg = arguments.get(i);
+                if (!(arg.value() instanceof Component value))
+                    continue;
+                Component result = replace(value, args, locale, expand);
+                if (result == value)
+                    continue;
+                if (replacedArgs == null)
+                    replacedArgs = new ArrayList<>(arguments);
+                replacedArgs.set(i, TranslationArgument.component(result));
+            }
+            if (replacedArgs != null)
+                component = translatable.arguments(replacedArgs);
+        }
+
+        return replaced == null ? component : component.children(replaced);
+    }
+
+    private Component split(TextComponent text, List<Component> children, List<TranslationArgument> args, Locale locale) {
+        String content = text.content();
+        List<Component> parts = new ArrayList<>(children.size() + 4);
+        String first = null;
+        int last = 0;
+        for (int i = content.indexOf(MARKER); i != -1 && i + 1 < content.length(); i = content.indexOf(MARKER, last)) {
+            if (first == null) first = content.substring(0, i);
+            else if (i > last) parts.add(Component.text(content.substring(last, i)));
+            parts.add(slot(content.charAt(i + 1) - SLOT_BASE, args, locale));
+            last = i + 2;
+        }
+        if (first == null)
+            return text.children(children);
+        if (last < content.length())
+            parts.add(Component.text(content.substring(last)));
+        parts.addAll(children);
+        return text.content(first).children(parts);
+    }
+
+    private Component slot(int index, List<TranslationArgument> args, Locale locale) {
+        Format.Compiled compiled = format.compiled();
+        int target = compiled.target(index);
+        if (target < args.size()) {
+            TranslationArgument arg = args.get(target);
+            if (arg.value() instanceof Component component)
+                return component;
+            return Component.text(compiled.format(index, locale, arg.value()));
+        }
+        return Component.text(compiled.pattern.substring(compiled.start(index), compiled.end(index)));
+    }
+
+    /**
+     * Identifies the expansion of one nested translatable of a template for one locale.
+     */
+    record Expansion(@NotNull TranslatableComponent component, @NotNull Locale locale) {
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Expansion expansion && component == expansion.component && locale.equals(expansion.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(component) + locale.hashCode();
+        }
+    }
+}
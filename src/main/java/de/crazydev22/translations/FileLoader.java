@@ -0,0 +1,294 @@
+/*
+Copyright (C) 2024 Julian Krings
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, version 3.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package de.crazydev22.translations;
+
+import lombok.NonNull;
+import lombok.extern.java.Log;
+import net.kyori.adventure.translation.Translator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+@Log
+public class FileLoader implements Predicate<@NotNull KyoriTranslationRegistry> {
+    static final String EXTENSION = ".properties";
+    private static final long WATCH_DEBOUNCE_MILLIS = 250;
+
+    private final File folder;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean incremental;
+    private volatile Executor executor;
+    private volatile Path bundle;
+
+    public FileLoader(@NonNull File folder) {
+        this.folder = folder;
+    }
+
+    @NotNull
+    public FileLoader incremental(boolean incremental) {
+        this.incremental = incremental;
+        if (!incremental) entries.clear();
+        return this;
+    }
+
+    public boolean incremental() {
+        return incremental;
+    }
+
+    @NotNull
+    public FileLoader parallel(boolean parallel) {
+        return parallel(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    @NotNull
+    public FileLoader parallel(@Nullable Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public boolean parallel() {
+        return executor != null;
+    }
+
+    @NotNull
+    public FileLoader bundle(@Nullable Path bundle) {
+        this.bundle = bundle;
+        return this;
+    }
+
+    @Nullable
+    public Path bundle() {
+        return bundle;
+    }
+
+    @Override
+    public boolean test(@NotNull KyoriTranslationRegistry registry) {
+        File[] files = folder.listFiles(file -> file.getName().endsWith(EXTENSION));
+        if (files == null) {
+            log.warning("Failed to find translation files in " + folder);
+            return false;
+        }
+        if (files.length == 0) {
+            log.warning("No translation files found in " + folder);
+            return false;
+        }
+
+        Path bundle = this.bundle;
+        List<TranslationBundle.Source> fingerprint = null;
+        if (bundle != null) {
+            try {
+                if (Files.isRegularFile(bundle)) {
+                    TranslationBundle compiled = TranslationBundle.open(bundle);
+                    if (compiled.upToDate(folder)) {
+                        compiled.registerAll(registry);
+                        return true;
+                    }
+                }
+                fingerprint = TranslationBundle.sources(folder);
+            } catch (Throwable e) {
+                log.log(Level.WARNING, "Failed to load translation bundle " + bundle, e);
+            }
+        }
+
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        List<File> sources = new ArrayList<>(files.length);
+        List<Locale> locales = new ArrayList<>(files.length);
+        for (File file : files) {
+            Locale locale = locale(file);
+            if (locale == null) {
+                log.warning("Failed to parse locale from " + file.getName());
+                continue;
+            }
+            sources.add(file);
+            locales.add(locale);
+        }
+
+        try {
+            List<CompletableFuture<Map<String, Format>>> results = load(sources, registry.lazy());
+            List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                try {
+                    registry.registerAll(locales.get(i), results.get(i).join());
+                } catch (Throwable e) {
+                    if (e instanceof CompletionException && e.getCause() != null)
+                        e = e.getCause();
+                    errors.add(new IOException("Failed to load " + sources.get(i).getName(), e));
+                }
+            }
+            entries.keySet().retainAll(sources.stream().map(File::getName).collect(Collectors.toSet()));
+
+            if (!errors.isEmpty()) {
+                IOException exception = new IOException(String.format("Failed to load %d translation file(s)", errors.size()));
+                errors.forEach(exception::addSuppressed);
+                throw exception;
+            }
+
+            if (fingerprint != null) {
+                try {
+                    List<Map<String, Format>> formats = new ArrayList<>(fingerprint.size());
+                    for (TranslationBundle.Source source : fingerprint)
+                        formats.add(results.get(indexOf(sources, source.name())).join());
+                    TranslationBundle.write(bundle, fingerprint, formats);
+                } catch (Throwable e) {
+                    log.log(Level.WARNING, "Failed to write translation bundle " + bundle, e);
+                }
+            }
+            return true;
+        } catch (Throwable e) {
+            log.log(Level.SEVERE, "Failed to load translation files in " + folder, e);
+            return false;
+        }
+    }
+
+    @NotNull
+    private List<CompletableFuture<Map<String, Format>>> load(@NotNull List<File> files, boolean lazy) {
+        Executor executor = this.executor;
+        List<CompletableFuture<Map<String, Format>>> results = new ArrayList<>(files.size());
+        for (File file : files) {
+            if (executor == null) {
+                try {
+                    results.add(CompletableFuture.completedFuture(load(file, lazy)));
+                } catch (Throwable e) {
+                    results.add(CompletableFuture.failedFuture(e));
+                }
+                continue;
+            }
+
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return load(file, lazy);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        return results;
+    }
+
+    @NotNull
+    public Closeable watch(@NonNull Runnable reload) throws IOException {
+        Path directory = folder.toPath();
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean changed = false;
+                    do {
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            if (!(event.context() instanceof Path name) || !name.toString().endsWith(EXTENSION))
+                                continue;
+                            entries.remove(name.toString());
+                            changed = true;
+                        }
+                        key.reset();
+                    } while ((key = service.poll(WATCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                    if (!changed) continue;
+                    try {
+                        reload.run();
+                    } catch (RuntimeException e) {
+                        log.log(Level.SEVERE, "Failed to reload translation files in " + folder, e);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ignored) {}
+        }, "Translation Watcher - " + folder.getName());
+        thread.setDaemon(true);
+        thread.start();
+
+        return () -> {
+            thread.interrupt();
+            service.close();
+        };
+    }
+
+    @NotNull
+    private Map<String, Format> load(@NotNull File file, boolean lazy) throws IOException {
+        Path path = file.toPath();
+        if (!incremental)
+            return parse(path, lazy);
+
+        // timestamps are too coarse on some file systems to catch a quick same-length edit, so the content decides
+        byte[] content = Files.readAllBytes(path);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        Entry entry = entries.get(file.getName());
+        if (entry != null && entry.matches(content.length, crc.getValue()))
+            return entry.formats();
+
+        Map<String, Format> formats = parse(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), path.toString(), lazy);
+        entries.put(file.getName(), new Entry(content.length, crc.getValue(), formats));
+        return formats;
+    }
+
+    private static int indexOf(@NotNull List<File> files, @NotNull String name) {
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).getName().equals(name))
+                return i;
+        }
+        throw new IllegalStateException("Translation file " + name + " disappeared");
+    }
+
+    @Nullable
+    static Locale locale(@NotNull File file) {
+        return locale(file.getName());
+    }
+
+    @Nullable
+    static Locale locale(@NotNull String name) {
+        return Translator.parseLocale(name.substring(0, name.length() - EXTENSION.length()));
+    }
+
+    @NotNull
+    static Map<String, Format> parse(@NotNull Path path, boolean lazy) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, path.toString(), lazy);
+        }
+    }
+
+    @NotNull
+    private static Map<String, Format> parse(@NotNull Reader reader, @NotNull String source, boolean lazy) throws IOException {
+        Map<String, Format> formats = new HashMap<>();
+        PropertiesParser.parse(reader, source, true, (key, value, line) -> formats.put(key, KyoriTranslationRegistry.format(value, false, lazy)));
+        return formats;
+    }
+
+    private record Entry(long size, long checksum, Map<String, Format> formats) {
+        boolean matches(long size, long checksum) {
+            return this.size == size && this.checksum == checksum;
+        }
+    }
+}
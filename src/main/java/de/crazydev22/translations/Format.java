@@ -1,29 +1,103 @@
 package de.crazydev22.translations;
 
-import lombok.Data;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
 
-@Data
 public class Format {
-    private final String pattern;
-    private final List<Argument> arguments;
-    private final int maxArgument;
+    private volatile Compiled compiled;
+    private Supplier<Compiled> compiler;
+    private volatile ComponentTemplate template;
 
     public Format(String pattern) {
+        this.compiled = compile(pattern);
+    }
+
+    Format(@NotNull Supplier<@NotNull Compiled> compiler) {
+        this.compiler = compiler;
+    }
+
+    private Format(@NotNull Compiled compiled) {
+        this.compiled = compiled;
+    }
+
+    @NotNull
+    public static Format lazy(@NotNull String pattern) {
+        return new Format(() -> compile(pattern));
+    }
+
+    /**
+     * Recreates a format from its compiled form without parsing, as emitted by {@link TranslationGenerator}.
+     */
+    @ApiStatus.Internal
+    @NotNull
+    public static Format precompiled(@NotNull String pattern, int @NotNull [] arguments, @Nullable String @Nullable [] tags, @Nullable String @Nullable [] styles) {
+        return new Format(new Compiled(pattern, arguments, tags, styles));
+    }
+
+    public String getPattern() {
+        return compiled().pattern;
+    }
+
+    public List<Argument> getArguments() {
+        return compiled().arguments();
+    }
+
+    public int getMaxArgument() {
+        return compiled().maxArgument;
+    }
+
+    boolean isCompiled() {
+        return compiled != null;
+    }
+
+    /**
+     * Whether arguments are formatted per locale, so the same format renders differently across locales.
+     */
+    boolean isLocalized() {
+        return compiled().styles != null;
+    }
+
+    @NotNull Compiled compiled() {
+        Compiled compiled = this.compiled;
+        if (compiled != null)
+            return compiled;
+        synchronized (this) {
+            compiled = this.compiled;
+            if (compiled == null) {
+                this.compiled = compiled = compiler.get();
+                compiler = null;
+            }
+            return compiled;
+        }
+    }
+
+    static @NotNull Compiled compile(@NotNull String pattern) {
         StringBuilder builder = new StringBuilder(pattern.length());
         var args = new ArrayList<Argument>();
         int currentArg = 0;
 
         boolean inTag = false;
+        int tagStart = -1;
+        String tag = null;
+        int tagArgument = -1;
         int valueStart = -1;
         char escape = '\'';
 
         int start = -1;
+        String argTag = null;
+        int argTagArgument = -1;
         int offset = 0;
         StringBuilder number = null;
+        StringBuilder style = null;
 
         int index = 0;
         for (char c : pattern.toCharArray()) {
@@ -32,22 +106,31 @@ public class Format {
             switch (c) {
                 case '{' -> {
                     start = i;
+                    argTag = tag;
+                    argTagArgument = tagArgument;
                     number = new StringBuilder();
+                    style = null;
                 }
                 case '}' -> {
                     if (start == -1)
                         break;
 
-                    int target = number.isEmpty() ? currentArg++ : Integer.parseInt(number.toString());
-                    args.add(new Argument(start + offset, i + offset, target));
+                    String argStyle = style == null ? null : style.toString().trim();
+                    if (argStyle == null || ArgumentFormatter.supported(argStyle)) {
+                        int target = number.isEmpty() ? currentArg++ : Integer.parseInt(number.toString());
+                        args.add(new Argument(start + offset, i + offset, target, argTag, argTagArgument, argStyle));
+                    }
                     start = -1;
                     number = null;
+                    style = null;
                 }
                 default -> {
                     if (start == -1)
                         break;
 
-                    if (Character.isDigit(c)) number.append(c);
+                    if (style != null) style.append(c);
+                    else if (Character.isDigit(c)) number.append(c);
+                    else if (c == ',') style = new StringBuilder();
                     else {
                         start = -1;
                         number = null;
@@ -57,6 +140,9 @@ public class Format {
 
             if (!inTag && c == '<') {
                 inTag = true;
+                tagStart = i;
+                tag = null;
+                tagArgument = 0;
                 builder.append(c);
                 continue;
             }
@@ -69,6 +155,8 @@ public class Format {
             switch (c) {
                 case '>' -> {
                     inTag = false;
+                    tag = null;
+                    tagArgument = -1;
                     if (valueStart != -1 && pattern.charAt(i-1) != escape) {
                         builder.append(escape);
                         offset++;
@@ -76,6 +164,9 @@ public class Format {
                     valueStart = -1;
                 }
                 case ':' -> {
+                    if (tag == null)
+                        tag = pattern.substring(tagStart + 1, i);
+                    tagArgument++;
                     if (valueStart != -1 && pattern.charAt(i-1) != escape) {
                         builder.append(escape);
                         offset++;
@@ -97,34 +188,272 @@ public class Format {
 
             builder.append(c);
         }
-        this.pattern = builder.toString();
-        this.arguments = Collections.unmodifiableList(args);
-        this.maxArgument = args.stream()
-                .mapToInt(Argument::target)
-                .max()
-                .orElse(-1);
+        return Compiled.of(builder.toString(), args);
     }
 
     public String format(String... args) {
-        String result = pattern;
-        int offset = 0;
-        for (Argument arg : arguments) {
-            if (arg.target >= args.length)
+        Compiled compiled = compiled();
+        String pattern = compiled.pattern;
+        int[] arguments = compiled.arguments;
+        int length = pattern.length();
+        for (int i = 0; i < arguments.length; i += Compiled.STRIDE) {
+            int target = arguments[i + 2];
+            if (target >= args.length)
+                continue;
+            String value = args[target];
+            length += (value == null ? 4 : value.length()) - (arguments[i + 1] - arguments[i]);
+        }
+        return appendTo(new StringBuilder(Math.max(length, 0)), args).toString();
+    }
+
+    public StringBuilder appendTo(StringBuilder builder, String... args) {
+        Compiled compiled = compiled();
+        String pattern = compiled.pattern;
+        int[] arguments = compiled.arguments;
+        int last = 0;
+        for (int i = 0; i < arguments.length; i += Compiled.STRIDE) {
+            int target = arguments[i + 2];
+            if (target >= args.length)
                 continue;
-            String before = result.substring(0, arg.start + offset);
-            String after = result.substring(arg.end + offset);
+            builder.append(pattern, last, arguments[i])
+                    .append(args[target]);
+            last = arguments[i + 1];
+        }
+        return builder.append(pattern, last, pattern.length());
+    }
 
-            String value = args[arg.target];
-            result = before + value + after;
-            offset += value.length() - arg.offset;
+    public <A extends Appendable> A appendTo(A appendable, String... args) throws IOException {
+        Compiled compiled = compiled();
+        String pattern = compiled.pattern;
+        int[] arguments = compiled.arguments;
+        int last = 0;
+        for (int i = 0; i < arguments.length; i += Compiled.STRIDE) {
+            int target = arguments[i + 2];
+            if (target >= args.length)
+                continue;
+            appendable.append(pattern, last, arguments[i])
+                    .append(args[target]);
+            last = arguments[i + 1];
         }
+        appendable.append(pattern, last, pattern.length());
+        return appendable;
+    }
+
+    public String format(@NotNull Locale locale, Object... args) {
+        return appendTo(new StringBuilder(compiled().pattern.length()), locale, args).toString();
+    }
 
-        return result;
+    public StringBuilder appendTo(StringBuilder builder, @NotNull Locale locale, Object... args) {
+        Compiled compiled = compiled();
+        String pattern = compiled.pattern;
+        int[] arguments = compiled.arguments;
+        int last = 0;
+        for (int i = 0, index = 0; i < arguments.length; i += Compiled.STRIDE, index++) {
+            int target = arguments[i + 2];
+            if (target >= args.length)
+                continue;
+            builder.append(pattern, last, arguments[i])
+                    .append(compiled.format(index, locale, args[target]));
+            last = arguments[i + 1];
+        }
+        return builder.append(pattern, last, pattern.length());
+    }
+
+    /**
+     * Formats for MiniMessage, escaping values that land inside a tag argument so they cannot close the argument or the tag.
+     */
+    @NotNull String formatTagSafe(@NotNull Locale locale, Object... args) {
+        Compiled compiled = compiled();
+        String pattern = compiled.pattern;
+        int[] arguments = compiled.arguments;
+        StringBuilder builder = new StringBuilder(pattern.length());
+        int last = 0;
+        for (int i = 0, index = 0; i < arguments.length; i += Compiled.STRIDE, index++) {
+            int target = arguments[i + 2];
+            if (target >= args.length)
+                continue;
+            builder.append(pattern, last, arguments[i]);
+            String value = compiled.format(index, locale, args[target]);
+            char quote = compiled.quote(index);
+            if (quote == 0) builder.append(value);
+            else appendEscaped(builder, value, quote);
+            last = arguments[i + 1];
+        }
+        return builder.append(pattern, last, pattern.length()).toString();
+    }
+
+    private static void appendEscaped(@NotNull StringBuilder builder, @NotNull String value, char quote) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quote == '<') { // an unquoted argument has no escapes, so characters that end it are dropped
+                if (c == '\\' || c == '\'' || c == '"' || c == ':' || c == '<' || c == '>') continue;
+            } else if (c == quote || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+    }
+
+    @Nullable ComponentTemplate template(@NotNull MiniMessage miniMessage, @Nullable TranslationMetrics metrics) {
+        ComponentTemplate template = this.template;
+        if (template == null || template.miniMessage() != miniMessage) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            this.template = template = ComponentTemplate.compile(this, miniMessage);
+            if (metrics != null && template.supported()) metrics.parsed(System.nanoTime() - start);
+        }
+        return template.supported() ? template : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Format format)) return false;
+        return compiled().equals(format.compiled());
+    }
+
+    @Override
+    public int hashCode() {
+        return compiled().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        Compiled compiled = compiled();
+        return "Format(pattern=" + compiled.pattern + ", arguments=" + compiled.arguments() + ", maxArgument=" + compiled.maxArgument + ")";
+    }
+
+    static final class Compiled {
+        static final int STRIDE = 4;
+        private static final int[] NO_ARGUMENTS = new int[0];
+
+        final String pattern;
+        final int[] arguments;
+        final String[] tags;
+        final String[] styles;
+        final int maxArgument;
+        private volatile char[] quotes;
+
+        Compiled(@NotNull String pattern, int @NotNull [] arguments, @Nullable String @Nullable [] tags, @Nullable String @Nullable [] styles) {
+            this.pattern = pattern;
+            this.arguments = arguments.length == 0 ? NO_ARGUMENTS : arguments;
+            this.tags = tags;
+            this.styles = styles;
+            int max = -1;
+            for (int i = 2; i < arguments.length; i += STRIDE)
+                max = Math.max(max, arguments[i]);
+            this.maxArgument = max;
+        }
+
+        static @NotNull Compiled of(@NotNull String pattern, @NotNull List<Argument> args) {
+            int[] arguments = new int[args.size() * STRIDE];
+            String[] tags = null;
+            String[] styles = null;
+            for (int i = 0; i < args.size(); i++) {
+                Argument arg = args.get(i);
+                arguments[i * STRIDE] = arg.start;
+                arguments[i * STRIDE + 1] = arg.end;
+                arguments[i * STRIDE + 2] = arg.target;
+                arguments[i * STRIDE + 3] = arg.tagArgument;
+                if (arg.style != null) {
+                    if (styles == null) styles = new String[args.size()];
+                    styles[i] = arg.style;
+                }
+                if (arg.tag == null) continue;
+                if (tags == null) tags = new String[args.size()];
+                tags[i] = arg.tag;
+            }
+            return new Compiled(pattern, arguments, tags, styles);
+        }
+
+        int size() {
+            return arguments.length / STRIDE;
+        }
+
+        int start(int index) {
+            return arguments[index * STRIDE];
+        }
+
+        int end(int index) {
+            return arguments[index * STRIDE + 1];
+        }
+
+        int target(int index) {
+            return arguments[index * STRIDE + 2];
+        }
+
+        int tagArgument(int index) {
+            return arguments[index * STRIDE + 3];
+        }
+
+        @Nullable String tag(int index) {
+            return tags == null ? null : tags[index];
+        }
+
+        @Nullable String style(int index) {
+            return styles == null ? null : styles[index];
+        }
+
+        /**
+         * Returns how the argument at the index is quoted: {@code 0} outside of tags, the quote character inside a quoted tag argument
+         * or {@code '<'} inside an unquoted one.
+         */
+        char quote(int index) {
+            if (tagArgument(index) == -1)
+                return 0;
+            char[] quotes = this.quotes;
+            if (quotes == null) this.quotes = quotes = quotes();
+            return quotes[index];
+        }
+
+        private char @NotNull [] quotes() {
+            char[] quotes = new char[size()];
+            char state = 0;
+            int slot = 0;
+            for (int i = 0; i < pattern.length() && slot < quotes.length; i++) {
+                while (slot < quotes.length && start(slot) <= i)
+                    quotes[slot++] = state;
+                char c = pattern.charAt(i);
+                if (c == '\\' && state != '<') i++;
+                else if (state == 0) { if (c == '<') state = '<'; }
+                else if (state == '<') { if (c == '>') state = 0; else if (c == '\'' || c == '"') state = c; }
+                else if (c == state) state = '<';
+            }
+            return quotes;
+        }
+
+        @NotNull String format(int index, @NotNull Locale locale, @Nullable Object value) {
+            String style = style(index);
+            if (style == null || !ArgumentFormatter.typed(value))
+                return String.valueOf(value);
+            return ArgumentFormatter.get(locale, style).format(value);
+        }
+
+        @NotNull List<Argument> arguments() {
+            Argument[] arguments = new Argument[size()];
+            for (int i = 0; i < arguments.length; i++)
+                arguments[i] = new Argument(start(i), end(i), target(i), end(i) - start(i), tag(i), tagArgument(i), style(i));
+            return List.of(arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Compiled compiled)) return false;
+            return pattern.equals(compiled.pattern)
+                    && Arrays.equals(arguments, compiled.arguments)
+                    && Arrays.equals(tags, compiled.tags)
+                    && Arrays.equals(styles, compiled.styles);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * pattern.hashCode() + Arrays.hashCode(arguments);
+        }
     }
 
-    private record Argument(int start, int end, int target, int offset) {
-        private Argument(int start, int end, int target) {
-            this(start, end + 1, target, end - start + 1);
+    record Argument(int start, int end, int target, int offset, @Nullable String tag, int tagArgument, @Nullable String style) {
+        private Argument(int start, int end, int target, @Nullable String tag, int tagArgument, @Nullable String style) {
+            this(start, end + 1, target, end - start + 1, tag, tagArgument, style);
         }
     }
 }
@@ -16,15 +16,14 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package de.crazydev22.translations;
 
 import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
+import net.kyori.adventure.text.Component;
 import net.kyori.examination.Examinable;
 import net.kyori.examination.ExaminableProperty;
 import net.kyori.examination.string.StringExaminer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,26 +38,115 @@ import static java.util.Objects.requireNonNull;
 @EqualsAndHashCode
 public class KyoriTranslationRegistry implements Examinable {
     private static final Pattern SINGLE_QUOTE_PATTERN = Pattern.compile("'");
+    static final int MAX_CACHED_LOCALES = 256;
 
+    @EqualsAndHashCode.Exclude
     private final Map<String, Translation> translations = new ConcurrentHashMap<>();
-    private Locale defaultLocale = Locale.US;
+    private final Map<Locale, List<Locale>> fallbacks = new ConcurrentHashMap<>();
+    @EqualsAndHashCode.Exclude
+    private volatile Map<Locale, Locale[]> chains = new ConcurrentHashMap<>();
+    private volatile Locale defaultLocale = Locale.US;
+    @EqualsAndHashCode.Exclude
+    private volatile boolean lazy;
+    @EqualsAndHashCode.Exclude
+    private volatile TranslationMetrics metrics;
+    @EqualsAndHashCode.Exclude
+    private volatile Compact compact;
+    @EqualsAndHashCode.Exclude
+    private volatile Frozen frozen;
+    @EqualsAndHashCode.Exclude
+    volatile Map<ComponentTemplate.Expansion, Component> expansions = new ConcurrentHashMap<>();
+    @EqualsAndHashCode.Exclude
+    volatile Map<Locale, Map<String, Component>> statics = new ConcurrentHashMap<>();
 
     public boolean contains(@NotNull String key) {
+        Frozen frozen = this.frozen;
+        if (frozen != null) return frozen.keys.contains(key);
+        Compact compact = this.compact;
+        if (compact != null) return compact.id(key) != -1;
         return translations.containsKey(key);
     }
 
     public boolean contains(@NotNull String key, @NotNull Locale locale) {
-        return translate(key, locale) != null;
+        return resolve(key, locale) != null;
+    }
+
+    @Nullable Format resolve(@NotNull String key, @NotNull Locale locale) {
+        Frozen frozen = this.frozen;
+        if (frozen != null) return frozen.translate(key, locale, null);
+        Compact compact = this.compact;
+        if (compact != null) return compact.translate(key, locale, null);
+        Translation translation = translations.get(key);
+        return translation == null ? null : translation.translate(chain(locale), locale, null);
     }
 
     public @Nullable Format translate(@NotNull String key, @NotNull Locale locale) {
+        TranslationMetrics metrics = this.metrics;
+        Frozen frozen = this.frozen;
+        if (frozen != null) return frozen.translate(key, locale, metrics);
+        Compact compact = this.compact;
+        if (compact != null) return compact.translate(key, locale, metrics);
         Translation translation = translations.get(key);
-        if (translation == null) return null;
-        return translation.translate(locale);
+        if (translation == null) {
+            if (metrics != null) metrics.missing(key, locale);
+            return null;
+        }
+        return translation.translate(chain(locale), locale, metrics);
+    }
+
+    public int size() {
+        Frozen frozen = this.frozen;
+        if (frozen != null) return frozen.keys.size();
+        Compact compact = this.compact;
+        return compact != null ? compact.size : translations.size();
+    }
+
+    public synchronized void compact() {
+        if (compact != null) return;
+        expand();
+        compact = new Compact(translations);
+        translations.clear();
+    }
+
+    public synchronized void freeze() {
+        if (frozen != null) return;
+        frozen = new Frozen(entries());
+        translations.clear();
+        compact = null;
+    }
+
+    public synchronized void expand() {
+        Map<String, Map<Locale, Format>> entries;
+        Frozen frozen = this.frozen;
+        Compact compact = this.compact;
+        if (frozen != null) entries = frozen.entries();
+        else if (compact != null) entries = compact.entries();
+        else return;
+        entries.forEach((key, formats) -> translations.computeIfAbsent(key, k -> new Translation(k, this)).formats.putAll(formats));
+        this.frozen = null;
+        this.compact = null;
+    }
+
+    public boolean compacted() {
+        return compact != null;
+    }
+
+    public boolean frozen() {
+        return frozen != null;
+    }
+
+    public void metrics(@Nullable TranslationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Nullable
+    public TranslationMetrics metrics() {
+        return this.metrics;
     }
 
     public void defaultLocale(@NotNull Locale locale) {
         this.defaultLocale = locale;
+        clearChains();
     }
 
     @NotNull
@@ -66,8 +154,116 @@ public class KyoriTranslationRegistry implements Examinable {
         return this.defaultLocale;
     }
 
+    public void lazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    public boolean lazy() {
+        return this.lazy;
+    }
+
+    public void fallback(@NotNull Locale locale, @NotNull Locale @NotNull ... fallbacks) {
+        if (fallbacks.length == 0) this.fallbacks.remove(locale);
+        else this.fallbacks.put(locale, List.of(fallbacks));
+        clearChains();
+    }
+
+    @NotNull
+    public Map<Locale, List<Locale>> fallbacks() {
+        return Collections.unmodifiableMap(this.fallbacks);
+    }
+
+    @NotNull
+    public List<Locale> fallbackChain(@NotNull Locale locale) {
+        return List.of(chain(locale));
+    }
+
+    // caches are swapped rather than cleared, so a lookup racing with this cannot store an entry computed from the old settings
+    private void clearChains() {
+        this.chains = new ConcurrentHashMap<>();
+        invalidateRenders();
+        Compact compact = this.compact;
+        if (compact != null) compact.chains = new ConcurrentHashMap<>();
+        Frozen frozen = this.frozen;
+        if (frozen != null) this.frozen = new Frozen(frozen.entries()); // fallbacks are baked into the table
+    }
+
+    private void invalidateRenders() {
+        this.expansions = new ConcurrentHashMap<>();
+        this.statics = new ConcurrentHashMap<>();
+    }
+
+    private Locale @NotNull [] chain(@NotNull Locale locale) {
+        return cached(chains, requireNonNull(locale, "locale"), this::computeChain);
+    }
+
+    // requested locales come from clients, so once a cache is full further locales are resolved without being stored
+    static <V> @NotNull V cached(@NotNull Map<Locale, V> cache, @NotNull Locale locale, @NotNull Function<Locale, V> compute) {
+        V value = cache.get(locale);
+        if (value != null) return value;
+        if (cache.size() >= MAX_CACHED_LOCALES) return compute.apply(locale);
+        return cache.computeIfAbsent(locale, compute);
+    }
+
+    private Locale @NotNull [] computeChain(@NotNull Locale locale) {
+        Set<Locale> chain = new LinkedHashSet<>();
+        expandChain(chain, locale);
+        expandChain(chain, defaultLocale);
+        return chain.toArray(Locale[]::new);
+    }
+
+    private void expandChain(@NotNull Set<Locale> chain, @NotNull Locale locale) {
+        if (!chain.add(locale))
+            return;
+        for (Locale fallback : fallbacks.getOrDefault(locale, List.of()))
+            expandChain(chain, fallback);
+        expandChain(chain, new Locale(locale.getLanguage())); // try without country
+    }
+
     public void register(@NotNull String key, @NotNull Locale locale, @NotNull Format format) {
-        translations.computeIfAbsent(key, Translation::new).register(locale, format);
+        if (compact != null || frozen != null) expand();
+        if (!expansions.isEmpty() || !statics.isEmpty()) invalidateRenders();
+        owned(key).register(locale, format);
+    }
+
+    // translations may be shared with the registry they came from, so they are copied before their first change
+    private @NotNull Translation owned(@NotNull String key) {
+        return translations.compute(key, (k, translation) -> translation == null ? new Translation(k, this)
+                : translation.owner == this ? translation : translation.copy(this));
+    }
+
+    /**
+     * Adds all formats of another registry, sharing its per-key translations instead of copying every entry.
+     */
+    void registerAll(@NotNull KyoriTranslationRegistry registry) {
+        if (registry.compact != null || registry.frozen != null) {
+            registry.entries().forEach((key, formats) -> formats.forEach((locale, format) -> register(key, locale, format)));
+            return;
+        }
+        if (compact != null || frozen != null) expand();
+        invalidateRenders();
+        registry.translations.forEach((key, translation) -> {
+            Translation existing = translations.putIfAbsent(key, translation);
+            if (existing != null) translation.formats.forEach((locale, format) -> register(key, locale, format));
+        });
+    }
+
+    /**
+     * Creates a registry with the same settings and formats that shares this registry's storage,
+     * so publishing a snapshot with changed settings does not register every format again.
+     */
+    @NotNull KyoriTranslationRegistry copy() {
+        KyoriTranslationRegistry copy = new KyoriTranslationRegistry();
+        copy.fallbacks.putAll(fallbacks);
+        copy.defaultLocale = defaultLocale;
+        copy.lazy = lazy;
+        copy.metrics = metrics;
+        copy.translations.putAll(translations);
+        Compact compact = this.compact;
+        if (compact != null) copy.compact = copy.new Compact(compact);
+        Frozen frozen = this.frozen;
+        if (frozen != null) copy.frozen = copy.new Frozen(frozen);
+        return copy;
     }
 
     public void registerAll(@NotNull Locale locale, @NotNull Map<String, Format> formats) {
@@ -75,6 +271,10 @@ public class KyoriTranslationRegistry implements Examinable {
     }
 
     public void registerAll(@NotNull Locale locale, @NotNull Set<String> keys, Function<String, Format> function) {
+        registerAll(locale, keys, function, null);
+    }
+
+    private void registerAll(@NotNull Locale locale, @NotNull Set<String> keys, Function<String, Format> function, @Nullable Function<String, String> location) {
         IllegalArgumentException firstError = null;
         int errorCount = 0;
         for (final String key : keys) {
@@ -82,7 +282,7 @@ public class KyoriTranslationRegistry implements Examinable {
                 register(key, locale, function.apply(key));
             } catch (final IllegalArgumentException e) {
                 if (firstError == null) {
-                    firstError = e;
+                    firstError = location == null ? e : new IllegalArgumentException(location.apply(key) + ": " + e.getMessage(), e);
                 }
                 errorCount++;
             }
@@ -98,30 +298,92 @@ public class KyoriTranslationRegistry implements Examinable {
 
     public void registerAll(@NotNull Locale locale, @NotNull Path path, boolean escapeSingleQuotes) {
         try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            registerAll(locale, new PropertyResourceBundle(reader), escapeSingleQuotes);
-        } catch (IOException ignored) {}
+            registerAll(locale, reader, path.toString(), escapeSingleQuotes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    public void registerAll(@NotNull Locale locale, @NotNull ResourceBundle bundle, boolean escapeSingleQuotes) {
-        registerAll(locale, bundle.keySet(), key -> {
-            String format = bundle.getString(key);
-            return new Format(escapeSingleQuotes ? SINGLE_QUOTE_PATTERN.matcher(format).replaceAll("''") : format);
+    public void registerAll(@NotNull Locale locale, @NotNull InputStream stream, @NotNull String source, boolean escapeSingleQuotes) throws IOException {
+        registerAll(locale, new InputStreamReader(stream, StandardCharsets.UTF_8), source, escapeSingleQuotes);
+    }
+
+    public void registerAll(@NotNull Locale locale, @NotNull Reader reader, @NotNull String source, boolean escapeSingleQuotes) throws IOException {
+        // a key may repeat within one file with the last value winning, so values are collected before registering
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, Integer> lines = new HashMap<>();
+        PropertiesParser.parse(reader, source, escapeSingleQuotes, (key, value, line) -> {
+            values.put(key, value);
+            lines.put(key, line);
         });
+        registerAll(locale, values.keySet(), key -> format(values.get(key), false, lazy), key -> source + ":" + lines.get(key));
+    }
+
+    public void registerAll(@NotNull Locale locale, @NotNull ResourceBundle bundle, boolean escapeSingleQuotes) {
+        registerAll(locale, bundle.keySet(), key -> format(bundle.getString(key), escapeSingleQuotes, lazy));
+    }
+
+    static @NotNull Format format(@NotNull String format, boolean escapeSingleQuotes, boolean lazy) {
+        if (lazy) return new Format(() -> Format.compile(escapeSingleQuotes ? SINGLE_QUOTE_PATTERN.matcher(format).replaceAll("''") : format));
+        return new Format(escapeSingleQuotes ? SINGLE_QUOTE_PATTERN.matcher(format).replaceAll("''") : format);
+    }
+
+    public void validate() {
+        RuntimeException firstError = null;
+        int errorCount = 0;
+        for (Map.Entry<String, Map<Locale, Format>> translation : entries().entrySet()) {
+            for (Map.Entry<Locale, Format> entry : translation.getValue().entrySet()) {
+                try {
+                    entry.getValue().compiled();
+                } catch (RuntimeException e) {
+                    if (firstError == null) {
+                        firstError = new IllegalArgumentException(String.format("Invalid translation: %s for %s", translation.getKey(), entry.getKey()), e);
+                    }
+                    errorCount++;
+                }
+            }
+        }
+        if (firstError != null) {
+            if (errorCount == 1) {
+                throw firstError;
+            } else {
+                throw new IllegalArgumentException(String.format("Invalid translation (and %d more)", errorCount - 1), firstError);
+            }
+        }
     }
 
     public void unregister(@NotNull String key) {
+        if (compact != null || frozen != null) expand();
+        invalidateRenders();
         translations.remove(key);
     }
 
     public void unregister(@NotNull String key, @NotNull Locale locale) {
-        Translation translation = translations.get(key);
-        if (translation == null) return;
-        translation.formats.remove(locale);
+        if (compact != null || frozen != null) expand();
+        if (!translations.containsKey(key)) return;
+        invalidateRenders();
+        owned(key).formats.remove(locale);
+    }
+
+    @EqualsAndHashCode.Include
+    private @NotNull Map<String, Map<Locale, Format>> entries() {
+        Frozen frozen = this.frozen;
+        if (frozen != null) return frozen.entries();
+        Compact compact = this.compact;
+        if (compact != null) return compact.entries();
+        Map<String, Map<Locale, Format>> entries = new HashMap<>(translations.size() * 4 / 3 + 1);
+        translations.forEach((key, translation) -> entries.put(key, translation.formats));
+        return entries;
     }
 
     @Override
     public @NotNull Stream<? extends ExaminableProperty> examinableProperties() {
-        return Stream.of(ExaminableProperty.of("translations", this.translations));
+        Frozen frozen = this.frozen;
+        Compact compact = this.compact;
+        return Stream.of(
+                ExaminableProperty.of("translations", frozen != null ? frozen.entries() : compact != null ? compact.entries() : this.translations),
+                ExaminableProperty.of("fallbacks", this.fallbacks)
+        );
     }
 
     @Override
@@ -130,10 +392,25 @@ public class KyoriTranslationRegistry implements Examinable {
     }
 
     @EqualsAndHashCode
-    @RequiredArgsConstructor
-    private class Translation implements Examinable {
+    private static final class Translation implements Examinable {
         private final String key;
-        private final Map<Locale, Format> formats = new ConcurrentHashMap<>();
+        @EqualsAndHashCode.Exclude
+        private final KyoriTranslationRegistry owner;
+        private final Map<Locale, Format> formats;
+
+        Translation(@NotNull String key, @NotNull KyoriTranslationRegistry owner) {
+            this(key, owner, new ConcurrentHashMap<>());
+        }
+
+        private Translation(@NotNull String key, @NotNull KyoriTranslationRegistry owner, @NotNull Map<Locale, Format> formats) {
+            this.key = key;
+            this.owner = owner;
+            this.formats = formats;
+        }
+
+        @NotNull Translation copy(@NotNull KyoriTranslationRegistry owner) {
+            return new Translation(key, owner, new ConcurrentHashMap<>(formats));
+        }
 
         void register(@NotNull Locale locale, @NotNull Format format) {
             if (this.formats.putIfAbsent(requireNonNull(locale, "locale"), requireNonNull(format, "message format")) != null) {
@@ -141,12 +418,15 @@ public class KyoriTranslationRegistry implements Examinable {
             }
         }
 
-        @Nullable Format translate(final @NotNull Locale locale) {
-            Format format = this.formats.get(requireNonNull(locale, "locale"));
-            if (format == null) format = this.formats.get(new Locale(locale.getLanguage())); // try without country
-            if (format == null) format = this.formats.get(defaultLocale); // try default locale
-            if (format == null) format = this.formats.get(new Locale(defaultLocale.getLanguage())); // try default locale without country
-            return format;
+        @Nullable Format translate(final Locale @NotNull [] chain, final @NotNull Locale locale, final @Nullable TranslationMetrics metrics) {
+            for (int i = 0; i < chain.length; i++) {
+                Format format = this.formats.get(chain[i]);
+                if (format == null) continue;
+                if (metrics != null) metrics.translated(this.key, locale, i);
+                return format;
+            }
+            if (metrics != null) metrics.missing(this.key, locale);
+            return null;
         }
 
         @Override
@@ -162,4 +442,221 @@ public class KyoriTranslationRegistry implements Examinable {
             return examine(StringExaminer.simpleEscaping());
         }
     }
+
+    private final class Compact {
+        private final String[] table;
+        private final int[] ids;
+        private final Locale[] locales;
+        private final Map<Locale, Integer> localeIds;
+        private final Format[] formats;
+        private final int size;
+        private volatile Map<Locale, int[]> chains = new ConcurrentHashMap<>();
+
+        Compact(@NotNull Compact other) {
+            this.table = other.table;
+            this.ids = other.ids;
+            this.locales = other.locales;
+            this.localeIds = other.localeIds;
+            this.formats = other.formats;
+            this.size = other.size;
+        }
+
+        Compact(@NotNull Map<String, Translation> translations) {
+            this.localeIds = new HashMap<>();
+            for (Translation translation : translations.values()) {
+                for (Locale locale : translation.formats.keySet())
+                    localeIds.putIfAbsent(locale, localeIds.size());
+            }
+            this.locales = new Locale[localeIds.size()];
+            localeIds.forEach((locale, id) -> locales[id] = locale);
+
+            this.size = translations.size();
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+            this.table = new String[capacity];
+            this.ids = new int[capacity];
+            this.formats = new Format[Math.multiplyExact(size, locales.length)];
+
+            Map<Format, Format> interned = new HashMap<>();
+            int id = 0;
+            for (Translation translation : translations.values()) {
+                int slot = slot(translation.key);
+                table[slot] = translation.key;
+                ids[slot] = id;
+                for (Map.Entry<Locale, Format> entry : translation.formats.entrySet())
+                    formats[id * locales.length + localeIds.get(entry.getKey())] = intern(interned, entry.getValue());
+                id++;
+            }
+        }
+
+        private static Format intern(Map<Format, Format> interned, Format format) {
+            if (!format.isCompiled()) return format; // keep lazy formats lazy
+            Format existing = interned.putIfAbsent(format, format);
+            return existing == null ? format : existing;
+        }
+
+        private int slot(@NotNull String key) {
+            int mask = table.length - 1;
+            int hash = key.hashCode();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != null && !table[slot].equals(key))
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        int id(@NotNull String key) {
+            int slot = slot(key);
+            return table[slot] == null ? -1 : ids[slot];
+        }
+
+        @Nullable Format translate(@NotNull String key, @NotNull Locale locale, @Nullable TranslationMetrics metrics) {
+            int id = id(key);
+            if (id != -1) {
+                int[] chain = cached(chains, locale, this::chainIds);
+                int base = id * locales.length;
+                for (int i = 0; i < chain.length; i++) {
+                    if (chain[i] == -1) continue;
+                    Format format = formats[base + chain[i]];
+                    if (format == null) continue;
+                    if (metrics != null) metrics.translated(key, locale, i);
+                    return format;
+                }
+            }
+            if (metrics != null) metrics.missing(key, locale);
+            return null;
+        }
+
+        private int @NotNull [] chainIds(@NotNull Locale locale) {
+            Locale[] chain = chain(locale);
+            int[] ids = new int[chain.length];
+            for (int i = 0; i < chain.length; i++)
+                ids[i] = localeIds.getOrDefault(chain[i], -1);
+            return ids;
+        }
+
+        @NotNull Map<String, Map<Locale, Format>> entries() {
+            Map<String, Map<Locale, Format>> entries = new HashMap<>(size * 4 / 3 + 1);
+            for (int slot = 0; slot < table.length; slot++) {
+                if (table[slot] == null) continue;
+                Map<Locale, Format> formats = new HashMap<>();
+                int base = ids[slot] * locales.length;
+                for (int i = 0; i < locales.length; i++) {
+                    if (this.formats[base + i] != null)
+                        formats.put(locales[i], this.formats[base + i]);
+                }
+                entries.put(table[slot], formats);
+            }
+            return entries;
+        }
+    }
+
+    private final class Frozen {
+        private final Set<String> keys;
+        private final String[] table;
+        private final int[] locales;
+        private final Format[] formats;
+        private final int[] depths;
+        private final Map<Locale, Integer> localeIds;
+        private final Map<Locale, int[]> aliases = new ConcurrentHashMap<>();
+
+        // only valid while the copy has the same default locale and fallbacks, changing them rebuilds the table
+        Frozen(@NotNull Frozen other) {
+            this.keys = other.keys;
+            this.table = other.table;
+            this.locales = other.locales;
+            this.formats = other.formats;
+            this.depths = other.depths;
+            this.localeIds = other.localeIds;
+        }
+
+        Frozen(@NotNull Map<String, Map<Locale, Format>> entries) {
+            this.localeIds = new HashMap<>();
+            Set<Locale> known = new LinkedHashSet<>();
+            known.add(defaultLocale);
+            known.addAll(fallbacks.keySet());
+            entries.values().forEach(formats -> known.addAll(formats.keySet()));
+            for (Locale locale : known)
+                localeIds.put(locale, localeIds.size());
+
+            this.keys = Set.copyOf(entries.keySet());
+            List<Locale[]> chains = new ArrayList<>(known.size());
+            int size = 0;
+            for (Locale locale : known) {
+                Locale[] chain = chain(locale);
+                chains.add(chain);
+                for (Map<Locale, Format> formats : entries.values()) {
+                    for (Locale candidate : chain) {
+                        if (formats.containsKey(candidate)) {
+                            size++;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+            this.table = new String[capacity];
+            this.locales = new int[capacity];
+            this.formats = new Format[capacity];
+            this.depths = new int[capacity];
+            for (Map.Entry<String, Map<Locale, Format>> entry : entries.entrySet()) {
+                for (int id = 0; id < chains.size(); id++) {
+                    Locale[] chain = chains.get(id);
+                    for (int i = 0; i < chain.length; i++) {
+                        Format format = entry.getValue().get(chain[i]);
+                        if (format == null) continue;
+                        int slot = slot(entry.getKey(), id);
+                        table[slot] = entry.getKey();
+                        locales[slot] = id;
+                        formats[slot] = format;
+                        depths[slot] = i;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private int slot(@NotNull String key, int locale) {
+            int mask = table.length - 1;
+            int hash = key.hashCode() * 31 + locale;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != null && (locales[slot] != locale || !table[slot].equals(key)))
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        @Nullable Format translate(@NotNull String key, @NotNull Locale locale, @Nullable TranslationMetrics metrics) {
+            int[] alias = cached(aliases, locale, this::alias);
+            int slot = slot(key, alias[0]);
+            if (table[slot] == null) {
+                if (metrics != null) metrics.missing(key, locale);
+                return null;
+            }
+            if (metrics != null) metrics.translated(key, locale, alias[1] + depths[slot]);
+            return formats[slot];
+        }
+
+        /**
+         * Maps a locale onto a pre-resolved one together with its offset in the locale's fallback chain.
+         * A locale without formats or fallbacks of its own resolves exactly like the next known locale in its chain.
+         */
+        private int @NotNull [] alias(@NotNull Locale locale) {
+            Locale[] chain = chain(locale);
+            for (int i = 0; i < chain.length; i++) {
+                Integer id = localeIds.get(chain[i]);
+                if (id != null) return new int[]{id, i};
+            }
+            throw new IllegalStateException("Default locale missing from fallback chain of " + locale);
+        }
+
+        @NotNull Map<String, Map<Locale, Format>> entries() {
+            Locale[] locales = new Locale[localeIds.size()];
+            localeIds.forEach((locale, id) -> locales[id] = locale);
+            Map<String, Map<Locale, Format>> entries = new HashMap<>(keys.size() * 4 / 3 + 1);
+            for (int slot = 0; slot < table.length; slot++) {
+                if (table[slot] == null || depths[slot] != 0) continue;
+                entries.computeIfAbsent(table[slot], key -> new HashMap<>()).put(locales[this.locales[slot]], formats[slot]);
+            }
+            return entries;
+        }
+    }
 }
@@ -0,0 +1,193 @@
+/*
+Copyright (C) 2024 Julian Krings
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, version 3.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package de.crazydev22.translations;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single pass reader for the {@link java.util.Properties} line format.
+ * <p>
+ * Entries are handed to the handler as soon as they are read, single quotes in values
+ * are optionally doubled while unescaping and errors carry the source name and line.
+ */
+final class PropertiesParser {
+    private static final int EOF = -1;
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final String source;
+    private final boolean escapeSingleQuotes;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+    private int position;
+    private int limit;
+    private int pushed = NONE;
+    private int line = 1;
+    private int start;
+
+    private PropertiesParser(@NotNull Reader reader, @NotNull String source, boolean escapeSingleQuotes) {
+        this.reader = reader;
+        this.source = source;
+        this.escapeSingleQuotes = escapeSingleQuotes;
+    }
+
+    static void parse(@NotNull Reader reader, @NotNull String source, boolean escapeSingleQuotes, @NotNull Handler handler) throws IOException {
+        new PropertiesParser(reader, source, escapeSingleQuotes).parse(handler);
+    }
+
+    private void parse(@NotNull Handler handler) throws IOException {
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == '\n' || whitespace(c))
+                continue;
+            if (c == '#' || c == '!') {
+                while (c != '\n' && c != EOF)
+                    c = read();
+                continue;
+            }
+
+            start = line;
+            key.setLength(0);
+            value.setLength(0);
+            if (readKey(c))
+                readValue();
+            try {
+                handler.accept(key.toString(), value.toString(), start);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(source + ":" + start + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean readKey(int c) throws IOException {
+        for (; c != EOF && c != '\n'; c = read()) {
+            if (c == '=' || c == ':') {
+                skipWhitespace();
+                return true;
+            }
+            if (whitespace(c)) {
+                skipWhitespace();
+                c = read();
+                if (c != '=' && c != ':') pushed = c;
+                else skipWhitespace();
+                return true;
+            }
+            if (c == '\\') {
+                if (!escape(key, false))
+                    return false;
+                continue;
+            }
+            key.append((char) c);
+        }
+        return false;
+    }
+
+    private void readValue() throws IOException {
+        for (int c = read(); c != EOF && c != '\n'; c = read()) {
+            if (c == '\\') {
+                if (!escape(value, escapeSingleQuotes))
+                    return;
+                continue;
+            }
+            if (c == '\'' && escapeSingleQuotes) value.append('\'');
+            value.append((char) c);
+        }
+    }
+
+    private boolean escape(@NotNull StringBuilder builder, boolean quotes) throws IOException {
+        int c = read();
+        switch (c) {
+            case EOF -> {
+                return false;
+            }
+            case '\n' -> {
+                skipWhitespace();
+                return true;
+            }
+            case 't' -> builder.append('\t');
+            case 'n' -> builder.append('\n');
+            case 'r' -> builder.append('\r');
+            case 'f' -> builder.append('\f');
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit == -1)
+                        throw new IOException(source + ":" + start + ": Malformed \\uxxxx encoding");
+                    value = (value << 4) | digit;
+                }
+                if (value == '\'' && quotes) builder.append('\'');
+                builder.append((char) value);
+            }
+            default -> {
+                if (c == '\'' && quotes) builder.append('\'');
+                builder.append((char) c);
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (whitespace(c));
+        pushed = c;
+    }
+
+    private int read() throws IOException {
+        if (pushed != NONE) {
+            int c = pushed;
+            pushed = NONE;
+            return c;
+        }
+        int c = next();
+        if (c == '\r') {
+            line++;
+            int following = next();
+            if (following != '\n' && following != EOF) position--;
+            return '\n';
+        }
+        if (c == '\n') line++;
+        return c;
+    }
+
+    private int next() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private static boolean whitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    @FunctionalInterface
+    interface Handler {
+        void accept(@NotNull String key, @NotNull String value, int line);
+    }
+}
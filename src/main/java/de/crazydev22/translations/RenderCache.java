@@ -0,0 +1,129 @@
+package de.crazydev22.translations;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TranslationArgument;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of rendered translations that is read without locking.
+ * Eviction is approximate: every sweep starts a new epoch, a hit moves an entry past the current epoch,
+ * and the entries with the oldest epoch are dropped first. While one thread sweeps, concurrent puts may briefly exceed the maximum size.
+ */
+public final class RenderCache {
+    private final int maximumSize;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile int epoch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Generation generation = new Generation(null);
+
+    RenderCache(int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize must be positive");
+        this.maximumSize = maximumSize;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public int size() {
+        return generation.entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public void invalidate() {
+        generation = new Generation(generation.registry);
+    }
+
+    void reset(@Nullable KyoriTranslationRegistry registry) {
+        generation = new Generation(registry);
+    }
+
+    @Nullable Component get(@NotNull KyoriTranslationRegistry registry, @NotNull Key key) {
+        Generation generation = this.generation;
+        Node node = generation.registry == registry ? generation.entries.get(key) : null;
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        int epoch = this.epoch + 1; // a hit ranks above entries merely inserted during the current epoch
+        if (node.epoch != epoch) node.epoch = epoch;
+        hits.increment();
+        return node.component;
+    }
+
+    void put(@NotNull KyoriTranslationRegistry registry, @NotNull Key key, @NotNull Component component) {
+        Generation generation = this.generation;
+        if (generation.registry != registry)
+            return;
+        generation.entries.put(key, new Node(component, epoch));
+        if (generation.entries.size() > maximumSize)
+            evict(generation.entries);
+    }
+
+    private void evict(@NotNull Map<Key, Node> entries) {
+        if (!evicting.compareAndSet(false, true))
+            return;
+        try {
+            // trim a tenth below the limit, so a full sweep is amortized over many puts
+            int excess = entries.size() - maximumSize + maximumSize / 10;
+            if (excess <= 0)
+                return;
+
+            Key[] keys = new Key[entries.size()];
+            Node[] nodes = new Node[keys.length];
+            long[] order = new long[keys.length];
+            int count = 0;
+            for (Map.Entry<Key, Node> entry : entries.entrySet()) {
+                if (count == keys.length) break;
+                keys[count] = entry.getKey();
+                nodes[count] = entry.getValue();
+                order[count] = (long) nodes[count].epoch << 32 | count;
+                count++;
+            }
+            Arrays.sort(order, 0, count);
+            for (int i = 0; i < excess && i < count; i++) {
+                int index = (int) order[i];
+                entries.remove(keys[index], nodes[index]);
+            }
+            epoch++;
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record Generation(@Nullable KyoriTranslationRegistry registry, @NotNull Map<Key, Node> entries) {
+        Generation(@Nullable KyoriTranslationRegistry registry) {
+            this(registry, new ConcurrentHashMap<>());
+        }
+    }
+
+    private static final class Node {
+        private final Component component;
+        private volatile int epoch;
+
+        Node(@NotNull Component component, int epoch) {
+            this.component = component;
+            this.epoch = epoch;
+        }
+    }
+
+    record Key(@NotNull String key, @NotNull Locale locale, @NotNull List<TranslationArgument> arguments) {}
+}
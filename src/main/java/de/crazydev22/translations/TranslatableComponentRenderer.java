@@ -7,6 +7,7 @@ import net.kyori.adventure.text.renderer.AbstractComponentRenderer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -16,25 +17,28 @@ public abstract class TranslatableComponentRenderer<C> extends AbstractComponent
 
     @Override
     protected @NotNull Component renderBlockNbt(@NotNull BlockNBTComponent component, @NotNull C context) {
-        BlockNBTComponent.Builder builder = nbt(context, Component.blockNBT(), component)
-                .pos(component.pos());
-        return this.mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(renderSeparator(component, context), context);
     }
 
     @Override
     protected @NotNull Component renderEntityNbt(@NotNull EntityNBTComponent component, @NotNull C context) {
-        EntityNBTComponent.Builder builder = nbt(context, Component.entityNBT(), component)
-                .selector(component.selector());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(renderSeparator(component, context), context);
     }
 
     @Override
     protected @NotNull Component renderStorageNbt(@NotNull StorageNBTComponent component, @NotNull C context) {
-        StorageNBTComponent.Builder builder = nbt(context, Component.storageNBT(), component)
-                .storage(component.storage());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(renderSeparator(component, context), context);
     }
 
+    protected <O extends NBTComponent<O, B>, B extends NBTComponentBuilder<O, B>> O renderSeparator(O component, C context) {
+        Component separator = renderSeparator(component.separator(), context);
+        return separator == null ? component : component.separator(separator);
+    }
+
+    /**
+     * @deprecated copies every NBT component into a builder, use {@link #renderSeparator(NBTComponent, Object)} instead
+     */
+    @Deprecated
     protected <O extends NBTComponent<O, B>, B extends NBTComponentBuilder<O, B>> B nbt(@NotNull C context, B builder, O oldComponent) {
         builder.nbtPath(oldComponent.nbtPath())
                 .interpret(oldComponent.interpret());
@@ -45,32 +49,56 @@ public abstract class TranslatableComponentRenderer<C> extends AbstractComponent
         return builder;
     }
 
+    /**
+     * Renders a separator, returning {@code null} when there is none or it is unchanged, so callers can keep the original component.
+     */
+    private @Nullable Component renderSeparator(@Nullable Component separator, @NotNull C context) {
+        if (separator == null) return null;
+        Component rendered = render(separator, context);
+        return rendered == separator ? null : rendered;
+    }
+
     @Override
     protected @NotNull Component renderKeybind(@NotNull KeybindComponent component, @NotNull C context) {
-        KeybindComponent.Builder builder = Component.keybind().keybind(component.keybind());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(component, context);
     }
 
     @Override
-    @SuppressWarnings("deprecation")
     protected @NotNull Component renderScore(@NotNull ScoreComponent component, @NotNull C context) {
-        ScoreComponent.Builder builder = Component.score()
-                .name(component.name())
-                .objective(component.objective())
-                .value(component.value());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(component, context);
     }
 
     @Override
     protected @NotNull Component renderSelector(@NotNull SelectorComponent component, @NotNull C context) {
-        SelectorComponent.Builder builder = Component.selector().pattern(component.pattern());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        Component separator = renderSeparator(component.separator(), context);
+        return optionallyDeepRender(separator == null ? component : component.separator(separator), context);
     }
 
     @Override
     protected @NotNull Component renderText(@NotNull TextComponent component, @NotNull C context) {
-        TextComponent.Builder builder = Component.text().content(component.content());
-        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        return optionallyDeepRender(component, context);
+    }
+
+    protected @NotNull Component optionallyDeepRender(@NotNull Component component, @NotNull C context) {
+        List<Component> children = component.children();
+        List<Component> rendered = null;
+        for (int i = 0, size = children.size(); i < size; i++) {
+            Component child = children.get(i);
+            Component result = render(child, context);
+            if (rendered == null) {
+                if (result == child && result != Component.empty()) continue;
+                rendered = new ArrayList<>(size);
+                rendered.addAll(children.subList(0, i));
+            }
+            if (result != Component.empty()) rendered.add(result); // builders drop empty children
+        }
+
+        @Nullable HoverEvent<?> hoverEvent = component.hoverEvent();
+        if (hoverEvent != null) {
+            HoverEvent<?> renderedHoverEvent = hoverEvent.withRenderedValue(this, context);
+            if (renderedHoverEvent != hoverEvent) component = component.hoverEvent(renderedHoverEvent);
+        }
+        return rendered == null ? component : component.children(rendered);
     }
 
     protected <O extends BuildableComponent<O, B>, B extends ComponentBuilder<O, B>> O mergeStyleAndOptionallyDeepRender(Component component, B builder, C context) {
@@ -0,0 +1,289 @@
+/*
+Copyright (C) 2024 Julian Krings
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, version 3.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package de.crazydev22.translations;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+public final class TranslationBundle {
+    private static final int MAGIC = 0x54524E42;
+    private static final int VERSION = 3;
+    private static final int ARGUMENT_SIZE = 6;
+    private static final int ENTRY_SIZE = 4 * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int offsets;
+    private final int data;
+    private final int ints;
+    private final String[] keys;
+    private final List<Source> sources;
+    private final int[] entries;
+
+    private TranslationBundle(@NotNull ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not a translation bundle");
+
+        int stringCount = buffer.getInt(8);
+        this.offsets = 12;
+        this.data = offsets + (stringCount + 1) * Integer.BYTES;
+        int position = data + buffer.getInt(offsets + stringCount * Integer.BYTES);
+
+        int intCount = buffer.getInt(position);
+        this.ints = position + Integer.BYTES;
+        position = ints + intCount * Integer.BYTES;
+
+        this.keys = new String[buffer.getInt(position)];
+        position += Integer.BYTES;
+        for (int i = 0; i < keys.length; i++, position += Integer.BYTES)
+            keys[i] = string(buffer.getInt(position));
+
+        int sourceCount = buffer.getInt(position);
+        position += Integer.BYTES;
+        var sources = new Source[sourceCount];
+        this.entries = new int[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            String name = string(buffer.getInt(position));
+            long size = buffer.getLong(position + 4);
+            long checksum = buffer.getLong(position + 12);
+            sources[i] = new Source(name, size, checksum);
+            entries[i] = position + 20;
+            position += 24 + buffer.getInt(position + 20) * ENTRY_SIZE;
+        }
+        this.sources = List.of(sources);
+    }
+
+    @NotNull
+    public static TranslationBundle open(@NonNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new TranslationBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated translation bundle " + path, e);
+        }
+    }
+
+    public static void compile(@NonNull File folder, @NonNull Path output) throws IOException {
+        List<Source> sources = sources(folder);
+        List<Map<String, Format>> formats = new ArrayList<>(sources.size());
+        for (Source source : sources)
+            formats.add(FileLoader.parse(new File(folder, source.name()).toPath(), false));
+        write(output, sources, formats);
+    }
+
+    @NotNull
+    public List<Source> sources() {
+        return sources;
+    }
+
+    public boolean upToDate(@NonNull File folder) {
+        try {
+            return sources.equals(sources(folder));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void registerAll(@NonNull KyoriTranslationRegistry registry) {
+        for (int i = 0; i < sources.size(); i++) {
+            Locale locale = FileLoader.locale(sources.get(i).name());
+            if (locale == null)
+                continue;
+
+            int position = entries[i];
+            int count = buffer.getInt(position);
+            Map<String, Format> formats = new HashMap<>(count * 4 / 3 + 1);
+            for (int j = 0, entry = position + Integer.BYTES; j < count; j++, entry += ENTRY_SIZE) {
+                int offset = entry;
+                formats.put(keys[buffer.getInt(entry)], new Format(() -> compiled(offset)));
+            }
+            registry.registerAll(locale, formats);
+        }
+    }
+
+    @NotNull
+    private Format.Compiled compiled(int entry) {
+        String pattern = string(buffer.getInt(entry + 4));
+        int index = ints + buffer.getInt(entry + 8) * ARGUMENT_SIZE * Integer.BYTES;
+        int count = buffer.getInt(entry + 12);
+        int[] arguments = new int[count * Format.Compiled.STRIDE];
+        String[] tags = null;
+        String[] styles = null;
+        for (int i = 0, j = 0; i < count; i++, index += ARGUMENT_SIZE * Integer.BYTES) {
+            arguments[j++] = buffer.getInt(index);
+            arguments[j++] = buffer.getInt(index + 4);
+            arguments[j++] = buffer.getInt(index + 8);
+            arguments[j++] = buffer.getInt(index + 16);
+            int style = buffer.getInt(index + 20);
+            if (style != -1) {
+                if (styles == null) styles = new String[count];
+                styles[i] = string(style);
+            }
+            int tag = buffer.getInt(index + 12);
+            if (tag == -1) continue;
+            if (tags == null) tags = new String[count];
+            tags[i] = string(tag);
+        }
+        return new Format.Compiled(pattern, arguments, tags, styles);
+    }
+
+    @NotNull
+    private String string(int id) {
+        int start = buffer.getInt(offsets + id * Integer.BYTES);
+        int end = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(data + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    static List<Source> sources(@NotNull File folder) throws IOException {
+        File[] files = folder.listFiles(file -> file.getName().endsWith(FileLoader.EXTENSION));
+        if (files == null)
+            throw new FileNotFoundException("Failed to find translation files in " + folder);
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        List<Source> sources = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (FileLoader.locale(file.getName()) == null)
+                continue;
+            sources.add(Source.of(file.toPath()));
+        }
+        return sources;
+    }
+
+    static void write(@NotNull Path output, @NotNull List<Source> sources, @NotNull List<Map<String, Format>> formats) throws IOException {
+        var strings = new LinkedHashMap<String, Integer>();
+        var keys = new LinkedHashMap<String, Integer>();
+        var ints = new IntArray();
+        var entries = new ArrayList<int[]>(sources.size());
+
+        for (int i = 0; i < sources.size(); i++) {
+            intern(strings, sources.get(i).name());
+            var sorted = new TreeMap<>(formats.get(i));
+            int[] table = new int[sorted.size() * 4];
+            int j = 0;
+            for (var entry : sorted.entrySet()) {
+                Integer key = keys.get(entry.getKey());
+                if (key == null) {
+                    keys.put(entry.getKey(), key = keys.size());
+                    intern(strings, entry.getKey());
+                }
+
+                Format.Compiled compiled = entry.getValue().compiled();
+                table[j++] = key;
+                table[j++] = intern(strings, compiled.pattern);
+                table[j++] = ints.size / ARGUMENT_SIZE;
+                table[j++] = compiled.size();
+                for (int k = 0; k < compiled.size(); k++) {
+                    String tag = compiled.tag(k);
+                    String style = compiled.style(k);
+                    ints.add(compiled.start(k));
+                    ints.add(compiled.end(k));
+                    ints.add(compiled.target(k));
+                    ints.add(tag == null ? -1 : intern(strings, tag));
+                    ints.add(compiled.tagArgument(k));
+                    ints.add(style == null ? -1 : intern(strings, style));
+                }
+            }
+            entries.add(table);
+        }
+
+        Path parent = output.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, output.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                var encoded = new ArrayList<byte[]>(strings.size());
+                out.writeInt(strings.size());
+                int offset = 0;
+                out.writeInt(offset);
+                for (String string : strings.keySet()) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    encoded.add(bytes);
+                    out.writeInt(offset += bytes.length);
+                }
+                for (byte[] bytes : encoded)
+                    out.write(bytes);
+
+                out.writeInt(ints.size);
+                for (int i = 0; i < ints.size; i++)
+                    out.writeInt(ints.values[i]);
+
+                out.writeInt(keys.size());
+                for (String key : keys.keySet())
+                    out.writeInt(strings.get(key));
+
+                out.writeInt(sources.size());
+                for (int i = 0; i < sources.size(); i++) {
+                    Source source = sources.get(i);
+                    int[] table = entries.get(i);
+                    out.writeInt(strings.get(source.name()));
+                    out.writeLong(source.size());
+                    out.writeLong(source.checksum());
+                    out.writeInt(table.length / 4);
+                    for (int value : table)
+                        out.writeInt(value);
+                }
+            }
+            try {
+                Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int intern(@NotNull Map<String, Integer> strings, @NotNull String string) {
+        Integer id = strings.get(string);
+        if (id == null) strings.put(string, id = strings.size());
+        return id;
+    }
+
+    public record Source(@NotNull String name, long size, long checksum) {
+        @NotNull
+        static Source of(@NotNull Path path) throws IOException {
+            byte[] content = Files.readAllBytes(path);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new Source(path.getFileName().toString(), content.length, crc.getValue());
+        }
+    }
+
+    private static final class IntArray {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package de.crazydev22.translations;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Generates a Java class from a folder of translation files, so the catalog is checked at build time and loaded without any parsing.
+ * The generated class holds a constant per key and implements the loader predicate by registering precompiled formats.
+ * <p>
+ * Formats are registered from a nested class per locale, split into methods and further classes by an upper bound
+ * of the bytecode and constant pool entries they compile to, so large catalogs stay within the class file limits.
+ */
+public final class TranslationGenerator {
+    private static final int METHOD_BYTES = 32_768;
+    private static final int CLASS_CONSTANTS = 32_768;
+    private static final int METHOD_CONSTANTS = 4;
+
+    private TranslationGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: TranslationGenerator <folder> <output directory> <class name> <default locale>");
+            System.exit(1);
+        }
+        Locale defaultLocale = FileLoader.locale(args[3] + FileLoader.EXTENSION);
+        if (defaultLocale == null)
+            throw new IllegalArgumentException("Invalid default locale: " + args[3]);
+        generate(new File(args[0]), Path.of(args[1]), args[2], defaultLocale);
+    }
+
+    @NotNull
+    public static Path generate(@NonNull File folder, @NonNull Path output, @NonNull String className, @NonNull Locale defaultLocale) throws IOException {
+        Map<Locale, Map<String, Format>> catalog = new LinkedHashMap<>();
+        for (TranslationBundle.Source source : TranslationBundle.sources(folder)) {
+            Locale locale = FileLoader.locale(source.name());
+            if (locale == null)
+                continue;
+            catalog.put(locale, new TreeMap<>(FileLoader.parse(new File(folder, source.name()).toPath(), false)));
+        }
+        Map<String, String> constants = check(catalog, defaultLocale);
+
+        int dot = className.lastIndexOf('.');
+        String packageName = dot == -1 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+        Path file = output.resolve(className.replace('.', File.separatorChar) + ".java");
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("// Generated by TranslationGenerator from " + folder.getName() + ". Do not edit.\n");
+            if (packageName != null)
+                writer.write("package " + packageName + ";\n\n");
+            writer.write("import de.crazydev22.translations.Format;\n");
+            writer.write("import de.crazydev22.translations.KyoriTranslationRegistry;\n\n");
+            writer.write("import java.util.Locale;\n");
+            writer.write("import java.util.function.Predicate;\n\n");
+            writer.write("public final class " + simpleName + " implements Predicate<KyoriTranslationRegistry> {\n");
+            for (Map.Entry<String, String> constant : constants.entrySet())
+                writer.write("    public static final String " + constant.getValue() + " = " + literal(constant.getKey()) + ";\n");
+
+            List<Part> parts = partition(catalog, constants);
+            writer.write("\n    @Override\n    public boolean test(KyoriTranslationRegistry registry) {\n");
+            for (int part = 0; part < parts.size(); part++)
+                writer.write("        Part" + part + ".register(registry);\n");
+            writer.write("        return true;\n    }\n");
+
+            for (int part = 0; part < parts.size(); part++) {
+                List<List<String>> methods = parts.get(part).methods();
+                writer.write("\n    private static final class Part" + part + " {\n");
+                writer.write("        static void register(KyoriTranslationRegistry registry) {\n");
+                writer.write("            Locale locale = Locale.forLanguageTag(" + literal(parts.get(part).locale().toLanguageTag()) + ");\n");
+                for (int method = 0; method < methods.size(); method++)
+                    writer.write("            register" + method + "(registry, locale);\n");
+                writer.write("        }\n");
+                for (int method = 0; method < methods.size(); method++) {
+                    writer.write("\n        private static void register" + method + "(KyoriTranslationRegistry registry, Locale locale) {\n");
+                    for (String statement : methods.get(method))
+                        writer.write("            " + statement + "\n");
+                    writer.write("        }\n");
+                }
+                writer.write("    }\n");
+            }
+            writer.write("}\n");
+        }
+        return file;
+    }
+
+    private static @NotNull List<Part> partition(@NotNull Map<Locale, Map<String, Format>> catalog, @NotNull Map<String, String> constants) {
+        List<Part> parts = new ArrayList<>();
+        for (Map.Entry<Locale, Map<String, Format>> entry : catalog.entrySet()) {
+            Part part = null;
+            List<String> method = null;
+            int bytes = 0;
+            int pool = 0;
+            for (Map.Entry<String, Format> translation : entry.getValue().entrySet()) {
+                Format.Compiled compiled = translation.getValue().compiled();
+                int size = bytes(compiled);
+                int entries = constants(compiled);
+                if (part == null || pool + entries + METHOD_CONSTANTS > CLASS_CONSTANTS) {
+                    parts.add(part = new Part(entry.getKey(), new ArrayList<>()));
+                    method = null;
+                    pool = 0;
+                }
+                if (method == null || bytes + size > METHOD_BYTES) {
+                    part.methods().add(method = new ArrayList<>());
+                    bytes = 0;
+                    pool += METHOD_CONSTANTS;
+                }
+                method.add("registry.register(" + constants.get(translation.getKey()) + ", locale, " + format(compiled) + ");");
+                bytes += size;
+                pool += entries;
+            }
+        }
+        return parts;
+    }
+
+    // loads and calls of a register statement, plus a dup, index, value and store per array element
+    private static int bytes(@NotNull Format.Compiled compiled) {
+        return 32 + 8 * (compiled.arguments.length + length(compiled.tags) + length(compiled.styles));
+    }
+
+    // a string constant takes two pool entries, an int outside the short range one
+    private static int constants(@NotNull Format.Compiled compiled) {
+        int count = 4 + 2 * (length(compiled.tags) + length(compiled.styles));
+        for (int argument : compiled.arguments)
+            if (argument != (short) argument) count++;
+        return count;
+    }
+
+    private static int length(@Nullable Object @Nullable [] values) {
+        return values == null ? 0 : values.length;
+    }
+
+    private static @NotNull Map<String, String> check(@NotNull Map<Locale, Map<String, Format>> catalog, @NotNull Locale defaultLocale) {
+        Map<String, Format> defaults = catalog.get(defaultLocale);
+        if (defaults == null)
+            throw new IllegalArgumentException("Missing translation file for default locale " + defaultLocale);
+
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<Locale, Map<String, Format>> entry : catalog.entrySet()) {
+            for (Map.Entry<String, Format> translation : entry.getValue().entrySet()) {
+                Format expected = defaults.get(translation.getKey());
+                if (expected == null)
+                    errors.add(String.format("Unknown key: %s for %s", translation.getKey(), entry.getKey()));
+                else if (expected.getMaxArgument() != translation.getValue().getMaxArgument())
+                    errors.add(String.format("Argument count mismatch: %s for %s uses %d, %s uses %d", translation.getKey(), entry.getKey(),
+                            translation.getValue().getMaxArgument() + 1, defaultLocale, expected.getMaxArgument() + 1));
+            }
+        }
+
+        Map<String, String> constants = new LinkedHashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (String key : defaults.keySet()) {
+            String name = constant(key);
+            String existing = names.putIfAbsent(name, key);
+            if (existing != null) errors.add(String.format("Keys %s and %s both map to constant %s", existing, key, name));
+            else constants.put(key, name);
+        }
+
+        if (errors.size() == 1)
+            throw new IllegalArgumentException(errors.get(0));
+        if (errors.size() > 1)
+            throw new IllegalArgumentException(String.format("%s (and %d more)", errors.get(0), errors.size() - 1));
+        return constants;
+    }
+
+    private static @NotNull String constant(@NotNull String key) {
+        StringBuilder builder = new StringBuilder(key.length() + 1);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < 128) builder.append(Character.toUpperCase(c));
+            else if (builder.isEmpty() || builder.charAt(builder.length() - 1) != '_') builder.append('_');
+        }
+        if (builder.isEmpty() || Character.isDigit(builder.charAt(0)))
+            builder.insert(0, '_');
+        return builder.toString();
+    }
+
+    private static @NotNull String format(@NotNull Format.Compiled compiled) {
+        StringBuilder builder = new StringBuilder("Format.precompiled(").append(literal(compiled.pattern)).append(", new int[]{");
+        for (int i = 0; i < compiled.arguments.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(compiled.arguments[i]);
+        }
+        return builder.append("}, ").append(array(compiled.tags)).append(", ").append(array(compiled.styles)).append(')').toString();
+    }
+
+    private static @NotNull String array(@Nullable String @Nullable [] values) {
+        if (values == null)
+            return "null";
+        StringJoiner joiner = new StringJoiner(", ", "new String[]{", "}");
+        for (String value : values)
+            joiner.add(value == null ? "null" : literal(value));
+        return joiner.toString();
+    }
+
+    private static @NotNull String literal(@NotNull String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c >= 0x20 && c < 0x7F) builder.append(c);
+                    else builder.append(String.format("\\u%04x", (int) c));
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private record Part(@NotNull Locale locale, @NotNull List<List<String>> methods) {}
+}
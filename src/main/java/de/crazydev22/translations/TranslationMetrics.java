@@ -0,0 +1,21 @@
+package de.crazydev22.translations;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+public interface TranslationMetrics {
+
+    /**
+     * @param depth the index of the matching locale in the fallback chain, {@code 0} being an exact match
+     */
+    default void translated(@NotNull String key, @NotNull Locale locale, int depth) {}
+
+    default void missing(@NotNull String key, @NotNull Locale locale) {}
+
+    default void rendered(@NotNull String key, long nanos) {}
+
+    default void parsed(long nanos) {}
+
+    default void reloaded(long nanos, int keys, boolean success) {}
+}
@@ -17,27 +17,39 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package de.crazydev22.translations;
 
 import lombok.NonNull;
-import lombok.extern.java.Log;
 import net.kyori.adventure.text.*;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.translation.Translator;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.logging.Level;
 
-@Log
 public class TranslationRegistry extends TranslatableComponentRenderer<Locale> {
+    private static final int MAX_EXPANSIONS = 4096;
     private final AtomicReference<KyoriTranslationRegistry> ref = new AtomicReference<>();
-    private final Predicate<KyoriTranslationRegistry> loader;
+    private final Map<String, Namespace> namespaces = new LinkedHashMap<>();
     private final MiniMessage miniMessage;
+    private volatile RenderCache cache;
+    private volatile TranslationMetrics metrics;
+    private final ThreadLocal<RenderPass> pass = new ThreadLocal<>();
+    private volatile Executor executor = defaultExecutor();
+    private volatile boolean compact;
+    private volatile boolean frozen;
+    private volatile int maxDepth = 16;
 
     public TranslationRegistry(@NonNull MiniMessage miniMessage, @NonNull Locale defaultLocale, @NonNull Predicate<@NotNull KyoriTranslationRegistry> loader) {
         this.miniMessage = miniMessage;
-        this.loader = loader;
+        this.namespaces.put("", new Namespace(loader));
         var reg = new KyoriTranslationRegistry();
         reg.defaultLocale(defaultLocale);
         ref.set(reg);
@@ -48,8 +60,8 @@ public class TranslationRegistry extends TranslatableComponentRenderer<Locale> {
         this(miniMessage, defaultLocale, fileLoader(folder));
     }
 
-    public void defaultLocale(@NonNull Locale locale) {
-        ref.get().defaultLocale(locale);
+    public synchronized void defaultLocale(@NonNull Locale locale) {
+        publish(rebuild(reg -> reg.defaultLocale(locale)));
     }
 
     @NotNull
@@ -57,86 +69,480 @@ public class TranslationRegistry extends TranslatableComponentRenderer<Locale> {
         return ref.get().defaultLocale();
     }
 
+    public void lazy(boolean lazy) {
+        ref.get().lazy(lazy);
+    }
+
+    public boolean lazy() {
+        return ref.get().lazy();
+    }
+
+    public synchronized void compact(boolean compact) {
+        this.compact = compact;
+        if (!frozen) publish(rebuild(reg -> {})); // the frozen table already replaces both representations
+    }
+
+    public boolean compact() {
+        return compact;
+    }
+
+    public synchronized void freeze(boolean freeze) {
+        this.frozen = freeze;
+        publish(rebuild(reg -> {}));
+    }
+
+    public boolean frozen() {
+        return frozen;
+    }
+
+    public synchronized void maxDepth(int maxDepth) {
+        if (maxDepth <= 0)
+            throw new IllegalArgumentException("maxDepth must be positive");
+        this.maxDepth = maxDepth;
+        publish(rebuild(reg -> {}));
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public void validate() {
+        ref.get().validate();
+    }
+
+    public synchronized void fallback(@NonNull Locale locale, @NonNull Locale... fallbacks) {
+        publish(rebuild(reg -> reg.fallback(locale, fallbacks)));
+    }
+
+    @NotNull
+    public List<Locale> fallbackChain(@NonNull Locale locale) {
+        return ref.get().fallbackChain(locale);
+    }
+
+    public void metrics(@Nullable TranslationMetrics metrics) {
+        this.metrics = metrics;
+        ref.get().metrics(metrics);
+    }
+
+    @Nullable
+    public TranslationMetrics metrics() {
+        return metrics;
+    }
+
+    public synchronized void renderCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            cache = null;
+            return;
+        }
+        RenderCache cache = new RenderCache(maximumSize);
+        cache.reset(ref.get());
+        this.cache = cache;
+    }
+
+    @Nullable
+    public RenderCache renderCache() {
+        return cache;
+    }
+
     public boolean contains(@NonNull String key) {
         return ref.get().contains(key);
     }
 
     public boolean contains(@NonNull String key, @NonNull Locale locale) {
-        return ref.get().translate(key, locale) != null;
+        return ref.get().contains(key, locale);
+    }
+
+    public void executor(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    @NotNull
+    public Executor executor() {
+        return executor;
     }
 
     @Override
-    protected @NotNull Component renderTranslatable(@NotNull TranslatableComponent component, @NotNull Locale context) {
-        Format format = ref.get().translate(component.key(), context);
-        if (format == null) {
-            TranslatableComponent.Builder builder = Component.translatable()
-                    .key(component.key()).fallback(component.fallback());
-            if (!component.arguments().isEmpty()) {
-                List<TranslationArgument> args = new ArrayList<>(component.arguments());
-                for (int i = 0, size = args.size(); i < size; i++) {
-                    TranslationArgument arg = args.get(i);
-                    if (arg.value() instanceof Component) {
-                        args.set(i, TranslationArgument.component(render(((Component) arg.value()), context)));
+    public @NotNull Component render(@NotNull Component component, @NotNull Locale context) {
+        if (pass.get() != null)
+            return super.render(component, context);
+        return render(ref.get(), component, context);
+    }
+
+    private @NotNull Component render(@NotNull KyoriTranslationRegistry registry, @NotNull Component component, @NotNull Locale context) {
+        RenderPass previous = pass.get();
+        pass.set(new RenderPass(registry, context, false));
+        try {
+            return super.render(component, context);
+        } finally {
+            if (previous == null) pass.remove();
+            else pass.set(previous);
+        }
+    }
+
+    @NotNull
+    public CompletableFuture<Component> renderAsync(@NonNull Component component, @NonNull Locale locale) {
+        KyoriTranslationRegistry registry = ref.get();
+        return CompletableFuture.supplyAsync(() -> render(registry, component, locale), executor);
+    }
+
+    @NotNull
+    public CompletableFuture<List<Component>> renderAsync(@NonNull List<? extends Component> components, @NonNull Locale locale) {
+        KyoriTranslationRegistry registry = ref.get();
+        return CompletableFuture.supplyAsync(() -> {
+            List<Component> rendered = new ArrayList<>(components.size());
+            for (Component component : components)
+                rendered.add(render(registry, component, locale));
+            return rendered;
+        }, executor);
+    }
+
+    @NotNull
+    public CompletableFuture<Map<Locale, Component>> renderAllAsync(@NonNull Component component, @NonNull Collection<Locale> locales) {
+        KyoriTranslationRegistry registry = ref.get();
+        return CompletableFuture.supplyAsync(() -> renderAll(registry, component, locales), executor);
+    }
+
+    @NotNull
+    public Map<Locale, Component> renderAll(@NonNull Component component, @NonNull Collection<Locale> locales) {
+        return renderAll(ref.get(), component, locales);
+    }
+
+    @NotNull
+    private Map<Locale, Component> renderAll(@NotNull KyoriTranslationRegistry registry, @NotNull Component component, @NotNull Collection<Locale> locales) {
+        Map<Locale, Component> results = new HashMap<>();
+        List<RenderPass> passes = new ArrayList<>();
+        RenderPass previous = pass.get();
+        try {
+            for (Locale locale : locales) {
+                if (results.containsKey(locale))
+                    continue;
+
+                Component rendered = null;
+                for (RenderPass candidate : passes) {
+                    if (candidate.matches(locale)) {
+                        rendered = candidate.result;
+                        break;
                     }
                 }
-                builder.arguments(args);
+
+                if (rendered == null) {
+                    RenderPass current = new RenderPass(registry, locale, true);
+                    pass.set(current);
+                    rendered = current.result = super.render(component, locale);
+                    passes.add(current);
+                }
+                results.put(locale, rendered);
             }
-            return mergeStyleAndOptionallyDeepRender(component, builder, context);
+        } finally {
+            if (previous == null) pass.remove();
+            else pass.set(previous);
         }
+        return results;
+    }
+
+    @Override
+    protected @NotNull Component renderTranslatable(@NotNull TranslatableComponent component, @NotNull Locale context) {
+        RenderPass pass = this.pass.get();
+        if (pass == null)
+            return render(component, context);
+
+        boolean nested = !pass.stack.isEmpty() && context.equals(pass.locale);
+        Component memoized = nested ? pass.memo.get(component) : null;
+        if (memoized != null)
+            return memoized;
+
+        // a repeated key with identical arguments can only recurse forever, so it degrades like a missing translation
+        if (pass.stack.size() >= maxDepth || pass.active(component)) {
+            pass.degraded++;
+            return untranslated(component, context);
+        }
+
+        int degraded = pass.degraded;
+        pass.stack.add(component);
+        try {
+            Component rendered = renderTranslatable(pass, component, context);
+            if (nested && pass.degraded == degraded) pass.memo.put(component, rendered);
+            return rendered;
+        } finally {
+            pass.stack.remove(pass.stack.size() - 1);
+        }
+    }
 
+    private @NotNull Component renderTranslatable(@NotNull RenderPass pass, @NotNull TranslatableComponent component, @NotNull Locale context) {
+        KyoriTranslationRegistry registry = pass.registry;
+        Format format = registry.translate(component.key(), context);
+        if (pass.recording) pass.record(component.key(), format);
+        if (format == null)
+            return untranslated(component, context);
+
+        TranslationMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
         TextComponent.Builder builder = Component.text();
         this.mergeStyle(component, builder, context);
-        String[] args = component.arguments()
-                .stream()
-                .map(TranslationArgumentLike::asComponent)
-                .map(Component::compact)
-                .map(miniMessage::serialize)
-                .toArray(String[]::new);
+        if (pass.recording) builder.append(render(translate(null, format, component.arguments(), context), context));
+        else if (format.getMaxArgument() == -1) builder.append(renderStatic(pass, format, component, context));
+        else builder.append(renderCached(pass, format, component, context));
+
+        Component rendered = optionallyRenderChildrenAppendAndBuild(component.children(), builder, context);
+        if (metrics != null) metrics.rendered(component.key(), System.nanoTime() - start);
+        return rendered;
+    }
+
+    private @NotNull Component untranslated(@NotNull TranslatableComponent component, @NotNull Locale context) {
+        TranslatableComponent.Builder builder = Component.translatable()
+                .key(component.key()).fallback(component.fallback());
+        if (!component.arguments().isEmpty()) {
+            List<TranslationArgument> args = new ArrayList<>(component.arguments());
+            for (int i = 0, size = args.size(); i < size; i++) {
+                TranslationArgument arg = args.get(i);
+                if (arg.value() instanceof Component) {
+                    args.set(i, TranslationArgument.component(render(((Component) arg.value()), context)));
+                }
+            }
+            builder.arguments(args);
+        }
+        return mergeStyleAndOptionallyDeepRender(component, builder, context);
+    }
+
+    // argument-free translations render to the same component for every caller, so they are kept for the lifetime of the snapshot
+    private @NotNull Component renderStatic(@NotNull RenderPass pass, @NotNull Format format, @NotNull TranslatableComponent component, @NotNull Locale context) {
+        Map<Locale, Map<String, Component>> statics = pass.registry.statics;
+        Map<String, Component> rendered = statics.get(context);
+        Component body = rendered != null ? rendered.get(component.key()) : null;
+        if (body != null)
+            return body;
 
-        Component translated = miniMessage.deserialize(format.format(args));
-        builder.append(render(translated, context));
+        int degraded = pass.degraded;
+        body = render(translate(pass, format, List.of(), context), context);
+        if (pass.degraded == degraded) {
+            if (rendered == null) rendered = KyoriTranslationRegistry.cached(statics, context, locale -> new ConcurrentHashMap<>());
+            rendered.put(component.key(), body);
+        }
+        return body;
+    }
+
+    private @NotNull Component renderCached(@NotNull RenderPass pass, @NotNull Format format, @NotNull TranslatableComponent component, @NotNull Locale context) {
+        RenderCache cache = this.cache;
+        if (cache == null)
+            return render(translate(pass, format, component.arguments(), context), context);
+
+        RenderCache.Key key = new RenderCache.Key(component.key(), context, component.arguments());
+        Component rendered = cache.get(pass.registry, key);
+        if (rendered == null) {
+            int degraded = pass.degraded;
+            rendered = render(translate(pass, format, component.arguments(), context), context);
+            if (pass.degraded == degraded) cache.put(pass.registry, key, rendered);
+        }
+        return rendered;
+    }
+
+    private @NotNull Component translate(@Nullable RenderPass pass, @NotNull Format format, @NotNull List<TranslationArgument> arguments, @NotNull Locale locale) {
+        TranslationMetrics metrics = this.metrics;
+        ComponentTemplate template = format.template(miniMessage, metrics);
+        if (template != null)
+            return template.apply(arguments, locale, pass == null ? null : nested -> expand(pass, nested, locale));
+
+        Object[] args = new Object[arguments.size()];
+        for (int i = 0; i < args.length; i++) {
+            Object value = arguments.get(i).value();
+            args[i] = value instanceof Component component ? miniMessage.serialize(component.compact()) : value;
+        }
+        if (metrics == null)
+            return miniMessage.deserialize(format.formatTagSafe(locale, args));
 
-        return optionallyRenderChildrenAppendAndBuild(component.children(), builder, context);
+        long start = System.nanoTime();
+        Component translated = miniMessage.deserialize(format.formatTagSafe(locale, args));
+        metrics.parsed(System.nanoTime() - start);
+        return translated;
     }
 
-    public void reload() {
-        ref.updateAndGet(old -> {
-            KyoriTranslationRegistry reg = new KyoriTranslationRegistry();
-            reg.defaultLocale(old.defaultLocale());
-            return loader.test(reg) ? reg : old;
+    private @NotNull Component expand(@NotNull RenderPass pass, @NotNull TranslatableComponent component, @NotNull Locale locale) {
+        ComponentTemplate.Expansion key = new ComponentTemplate.Expansion(component, locale);
+        Component expanded = pass.registry.expansions.get(key);
+        if (expanded != null)
+            return expanded;
+
+        int degraded = pass.degraded;
+        expanded = render(component, locale);
+        Map<ComponentTemplate.Expansion, Component> expansions = pass.registry.expansions;
+        if (pass.degraded == degraded && expansions.size() < MAX_EXPANSIONS) expansions.put(key, expanded);
+        return expanded;
+    }
+
+    public synchronized void namespace(@NonNull String namespace, @NonNull Predicate<@NotNull KyoriTranslationRegistry> loader) {
+        if (namespace.isEmpty())
+            throw new IllegalArgumentException("Namespace must not be empty");
+        Namespace previous = namespaces.put(namespace, new Namespace(loader));
+        try {
+            reload(List.of(namespace));
+        } catch (RuntimeException e) {
+            if (previous == null) namespaces.remove(namespace);
+            else namespaces.put(namespace, previous);
+            throw e;
+        }
+    }
+
+    public synchronized void removeNamespace(@NonNull String namespace) {
+        if (namespace.isEmpty())
+            throw new IllegalArgumentException("Namespace must not be empty");
+        Namespace removed = namespaces.remove(namespace);
+        if (removed == null || removed.registry == null)
+            return;
+        publish(compose(ref.get(), Map.of()));
+    }
+
+    @NotNull
+    public synchronized Set<String> namespaces() {
+        Set<String> names = new LinkedHashSet<>(namespaces.keySet());
+        names.remove("");
+        return names;
+    }
+
+    public synchronized void reload() {
+        reload(namespaces.keySet());
+    }
+
+    public synchronized void reload(@NonNull String namespace) {
+        if (!namespaces.containsKey(namespace))
+            throw new IllegalArgumentException("Unknown namespace: " + namespace);
+        reload(List.of(namespace));
+    }
+
+    private void reload(@NotNull Collection<String> names) {
+        TranslationMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        KyoriTranslationRegistry old = ref.get();
+        Map<String, KyoriTranslationRegistry> loaded = new HashMap<>();
+        for (String name : names) {
+            KyoriTranslationRegistry reg = create(old);
+            if (namespaces.get(name).loader.test(reg))
+                loaded.put(name, reg);
+        }
+
+        KyoriTranslationRegistry result = loaded.isEmpty() ? old : compose(old, loaded);
+        loaded.forEach((name, reg) -> namespaces.get(name).registry = reg);
+        if (metrics != null) metrics.reloaded(System.nanoTime() - start, result.size(), !loaded.isEmpty());
+        publish(result);
+    }
+
+    private void publish(@NotNull KyoriTranslationRegistry registry) {
+        ref.set(registry);
+        RenderCache cache = this.cache;
+        if (cache != null) cache.reset(registry);
+    }
+
+    /**
+     * Copies the published snapshot with changed settings, so renders that already hold the old snapshot never observe the change halfway.
+     * The copy shares the snapshot's formats; only a frozen table is rebuilt when the fallbacks or default locale change.
+     */
+    private @NotNull KyoriTranslationRegistry rebuild(@NotNull Consumer<KyoriTranslationRegistry> configure) {
+        KyoriTranslationRegistry reg = ref.get().copy();
+        configure.accept(reg);
+        if (frozen) reg.freeze();
+        else if (compact) reg.compact();
+        else reg.expand();
+        return reg;
+    }
+
+    private @NotNull KyoriTranslationRegistry create(@NotNull KyoriTranslationRegistry old) {
+        KyoriTranslationRegistry reg = new KyoriTranslationRegistry();
+        reg.defaultLocale(old.defaultLocale());
+        reg.lazy(old.lazy());
+        reg.metrics(metrics);
+        old.fallbacks().forEach((locale, fallbacks) -> reg.fallback(locale, fallbacks.toArray(Locale[]::new)));
+        return reg;
+    }
+
+    private @NotNull KyoriTranslationRegistry compose(@NotNull KyoriTranslationRegistry old, @NotNull Map<String, KyoriTranslationRegistry> loaded) {
+        List<KyoriTranslationRegistry> parts = new ArrayList<>(namespaces.size());
+        namespaces.forEach((name, namespace) -> {
+            KyoriTranslationRegistry part = loaded.getOrDefault(name, namespace.registry);
+            if (part != null) parts.add(part);
         });
+
+        KyoriTranslationRegistry reg;
+        // the namespace keeps its registry in map form, so later compositions can share its translations
+        if (parts.size() == 1 && loaded.containsValue(parts.get(0))) reg = frozen || compact ? parts.get(0).copy() : parts.get(0);
+        else {
+            // other namespaces share their already parsed translations, so only the reloaded ones are read again
+            reg = create(old);
+            for (KyoriTranslationRegistry part : parts)
+                reg.registerAll(part);
+        }
+        if (frozen) reg.freeze();
+        else if (compact) reg.compact();
+        return reg;
     }
 
     @NotNull
     public static Predicate<@NotNull KyoriTranslationRegistry> fileLoader(@NonNull File folder) {
-        return registry -> {
-            File[] files = folder.listFiles(file -> file.getName().endsWith(".properties"));
-            if (files == null) {
-                log.warning("Failed to find translation files in " + folder);
-                return false;
-            }
-            if (files.length == 0) {
-                log.warning("No translation files found in " + folder);
-                return false;
+        return new FileLoader(folder);
+    }
+
+    @NotNull
+    public static Predicate<@NotNull KyoriTranslationRegistry> archiveLoader(@NonNull Path archive, @NonNull String folder) {
+        return new ArchiveLoader(archive, folder);
+    }
+
+    @NotNull
+    private static Executor defaultExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    private static final class Namespace {
+        private final Predicate<KyoriTranslationRegistry> loader;
+        private KyoriTranslationRegistry registry;
+
+        private Namespace(Predicate<KyoriTranslationRegistry> loader) {
+            this.loader = loader;
+        }
+    }
+
+    private static final class RenderPass {
+        private final KyoriTranslationRegistry registry;
+        private final Locale locale;
+        private final boolean recording;
+        private final List<String> keys = new ArrayList<>();
+        private final List<Format> formats = new ArrayList<>();
+        private final List<TranslatableComponent> stack = new ArrayList<>();
+        private final Map<TranslatableComponent, Component> memo = new HashMap<>();
+        private int degraded;
+        private boolean localized;
+        private Component result;
+
+        private RenderPass(KyoriTranslationRegistry registry, Locale locale, boolean recording) {
+            this.registry = registry;
+            this.locale = locale;
+            this.recording = recording;
+        }
+
+        boolean active(TranslatableComponent component) {
+            for (int i = 0, size = stack.size(); i < size; i++) {
+                TranslatableComponent active = stack.get(i);
+                if (active.key().equals(component.key()) && active.arguments().equals(component.arguments()))
+                    return true;
             }
+            return false;
+        }
 
-            try {
-                for (File file : files) {
-                    String tag = file.getName();
-                    tag = tag.substring(0, tag.length() - ".properties".length());
-                    Locale locale = Translator.parseLocale(tag);
-                    if (locale == null) {
-                        log.warning("Failed to parse locale from " + tag);
-                        continue;
-                    }
+        void record(String key, @Nullable Format format) {
+            keys.add(key);
+            formats.add(format);
+            if (format != null && format.isLocalized()) localized = true;
+        }
 
-                    registry.registerAll(locale, file.toPath(), true);
-                }
-                return true;
-            } catch (Throwable e) {
-                log.log(Level.SEVERE, "Failed to load translation files in " + folder, e);
+        boolean matches(Locale locale) {
+            if (localized) // typed arguments are formatted for the pass locale even when the format is shared
                 return false;
+            for (int i = 0, size = keys.size(); i < size; i++) {
+                if (registry.resolve(keys.get(i), locale) != formats.get(i))
+                    return false;
             }
-        };
+            return true;
+        }
     }
 }
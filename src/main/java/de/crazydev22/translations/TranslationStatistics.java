@@ -0,0 +1,169 @@
+package de.crazydev22.translations;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranslationStatistics implements TranslationMetrics {
+    private static final int DEPTHS = 8;
+    private static final int BUCKETS = 40;
+
+    private final Map<String, Counter> keys = new ConcurrentHashMap<>();
+    private final Map<Locale, Set<String>> missing = new ConcurrentHashMap<>();
+    private final LongAdder[] depths = adders(DEPTHS);
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder[] renderLatency = adders(BUCKETS);
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failedReloads = new LongAdder();
+    private volatile long lastReloadNanos = -1;
+    private volatile int lastReloadKeys = -1;
+
+    @Override
+    public void translated(@NotNull String key, @NotNull Locale locale, int depth) {
+        counter(key).hits.increment();
+        depths[Math.min(depth, DEPTHS - 1)].increment();
+        if (depth > 0) missing(locale).add(key);
+    }
+
+    @Override
+    public void missing(@NotNull String key, @NotNull Locale locale) {
+        counter(key).misses.increment();
+        misses.increment();
+        missing(locale).add(key);
+    }
+
+    @Override
+    public void rendered(@NotNull String key, long nanos) {
+        renderLatency[bucket(nanos)].increment();
+    }
+
+    @Override
+    public void parsed(long nanos) {
+        parses.increment();
+        parseNanos.add(nanos);
+    }
+
+    @Override
+    public void reloaded(long nanos, int keys, boolean success) {
+        reloads.increment();
+        if (!success) {
+            failedReloads.increment();
+            return;
+        }
+        lastReloadNanos = nanos;
+        lastReloadKeys = keys;
+    }
+
+    public long hits(@NotNull String key) {
+        Counter counter = keys.get(key);
+        return counter == null ? 0 : counter.hits.sum();
+    }
+
+    public long misses(@NotNull String key) {
+        Counter counter = keys.get(key);
+        return counter == null ? 0 : counter.misses.sum();
+    }
+
+    public long hits() {
+        long hits = 0;
+        for (LongAdder depth : depths)
+            hits += depth.sum();
+        return hits;
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long[] fallbackDepths() {
+        return sums(depths);
+    }
+
+    @NotNull
+    public Map<Locale, Set<String>> missingKeys() {
+        Map<Locale, Set<String>> report = new HashMap<>();
+        missing.forEach((locale, keys) -> report.put(locale, Set.copyOf(keys)));
+        return report;
+    }
+
+    /**
+     * @return render counts per latency bucket, bucket {@code i} counting renders that took less than {@code 2^(i+1)} nanoseconds
+     */
+    public long[] renderLatency() {
+        return sums(renderLatency);
+    }
+
+    public long parses() {
+        return parses.sum();
+    }
+
+    public long parseNanos() {
+        return parseNanos.sum();
+    }
+
+    public long reloads() {
+        return reloads.sum();
+    }
+
+    public long failedReloads() {
+        return failedReloads.sum();
+    }
+
+    public long lastReloadNanos() {
+        return lastReloadNanos;
+    }
+
+    public int lastReloadKeys() {
+        return lastReloadKeys;
+    }
+
+    public void reset() {
+        keys.clear();
+        missing.clear();
+        misses.reset();
+        parses.reset();
+        parseNanos.reset();
+        reloads.reset();
+        failedReloads.reset();
+        for (LongAdder depth : depths) depth.reset();
+        for (LongAdder bucket : renderLatency) bucket.reset();
+    }
+
+    private Counter counter(String key) {
+        Counter counter = keys.get(key);
+        if (counter == null) counter = keys.computeIfAbsent(key, k -> new Counter());
+        return counter;
+    }
+
+    // locales come from clients, so once the report holds too many of them further locales are not tracked
+    private Set<String> missing(Locale locale) {
+        return KyoriTranslationRegistry.cached(missing, locale, l -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1)));
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++)
+            sums[i] = adders[i].sum();
+        return sums;
+    }
+
+    private static final class Counter {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
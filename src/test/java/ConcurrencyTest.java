@@ -0,0 +1,137 @@
+import de.crazydev22.translations.Format;
+import de.crazydev22.translations.TranslationRegistry;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ConcurrencyTest {
+    private static final Pattern GENERATIONS = Pattern.compile("a(\\d+) b(\\d+)");
+    private static final long STRESS_MILLIS = 1000;
+    private static final int ITERATIONS = 10_000;
+
+    @Test
+    void snapshots() throws InterruptedException {
+        var mini = MiniMessage.miniMessage();
+        var generation = new AtomicInteger();
+        var loads = new AtomicInteger();
+        var registry = new TranslationRegistry(mini, Locale.US, r -> {
+            loads.incrementAndGet();
+            int current = generation.incrementAndGet();
+            for (Locale locale : List.of(Locale.US, Locale.GERMANY)) {
+                r.register("a", locale, new Format("a" + current));
+                r.register("b", locale, new Format("b" + current));
+                r.register("pair", locale, new Format("<lang:a> <lang:b>"));
+            }
+            return true;
+        });
+        registry.renderCache(64);
+
+        var msg = Component.text().append(Component.translatable("a")).append(Component.text(" ")).append(Component.translatable("b")).build();
+        var nested = Component.translatable("pair");
+        var running = new AtomicBoolean(true);
+        var renders = new AtomicLong();
+        var reloads = new AtomicInteger();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            boolean germany = i % 2 == 0;
+            threads.add(new Thread(() -> {
+                Locale locale = germany ? Locale.GERMANY : Locale.UK;
+                while (running.get()) {
+                    consistent(mini.serialize(registry.render(msg, locale)));
+                    consistent(mini.serialize(registry.render(nested, locale)));
+                    assertTrue(registry.contains("a", locale));
+                    assertFalse(registry.fallbackChain(locale).isEmpty());
+                    renders.incrementAndGet();
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                registry.reload();
+                reloads.incrementAndGet();
+            }
+        }));
+        threads.add(new Thread(() -> {
+            for (int i = 0; running.get(); i++)
+                registry.defaultLocale(i % 2 == 0 ? Locale.GERMANY : Locale.US);
+        }));
+        threads.add(new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                registry.freeze(i % 3 == 0);
+                registry.fallback(Locale.UK, i % 2 == 0 ? Locale.GERMANY : Locale.US);
+            }
+        }));
+
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+            thread.start();
+        }
+        TimeUnit.MILLISECONDS.sleep(STRESS_MILLIS);
+        running.set(false);
+        for (Thread thread : threads)
+            thread.join();
+
+        errors.forEach(Throwable::printStackTrace);
+        assertTrue(errors.isEmpty(), errors.size() + " thread(s) failed");
+        assertTrue(renders.get() > 0);
+        assertEquals(reloads.get() + 1, loads.get(), "the loader must run exactly once per reload");
+    }
+
+    private static void consistent(String rendered) {
+        var matcher = GENERATIONS.matcher(rendered);
+        assertTrue(matcher.find(), rendered);
+        assertEquals(matcher.group(1), matcher.group(2), "render mixed two snapshots: " + rendered);
+    }
+
+    @Test
+    void formatAllocations() {
+        var format = new Format("<green>Hello {0}, you have {1} new <lang:mail:{1}>");
+        String[] args = {"Steve", "3"};
+        long bytes = allocated(() -> format.format(args));
+        assertTrue(bytes <= 512, "Format.format allocated " + bytes + " bytes per call");
+    }
+
+    @Test
+    void renderAllocations() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("test", Locale.US, new Format("<green>Hello {0}, <gold>welcome back"));
+            return true;
+        });
+        var msg = Component.translatable("test", Component.text("Steve"));
+        long bytes = allocated(() -> registry.render(msg, Locale.US));
+        assertTrue(bytes <= 8192, "renderTranslatable allocated " + bytes + " bytes per call");
+    }
+
+    private static long allocated(Runnable task) {
+        var threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "allocation counters are not available");
+        var counters = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(counters.isThreadAllocatedMemorySupported(), "allocation counters are not supported");
+        counters.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < ITERATIONS; i++)
+            task.run();
+        long id = Thread.currentThread().getId();
+        long start = counters.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ITERATIONS; i++)
+            task.run();
+        return (counters.getThreadAllocatedBytes(id) - start) / ITERATIONS;
+    }
+}
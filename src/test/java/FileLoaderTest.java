@@ -0,0 +1,236 @@
+import de.crazydev22.translations.FileLoader;
+import de.crazydev22.translations.KyoriTranslationRegistry;
+import de.crazydev22.translations.TranslationBundle;
+import de.crazydev22.translations.TranslationGenerator;
+import de.crazydev22.translations.TranslationRegistry;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.PropertyResourceBundle;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.ToolProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileLoaderTest {
+
+    @Test
+    void incremental(@TempDir Path folder) throws IOException {
+        Files.writeString(folder.resolve("en_US.properties"), "test=Hello {0}\nquote=It's\n");
+        Files.writeString(folder.resolve("de_DE.properties"), "test=Hallo {0}\n");
+
+        var loader = new FileLoader(folder.toFile()).incremental(true);
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, loader);
+        assertTrue(registry.contains("test", Locale.GERMANY));
+        assertTrue(registry.contains("quote", Locale.US));
+        assertFalse(registry.contains("other"));
+
+        // same length and timestamp, like a quick fix on a file system with coarse timestamps
+        var german = folder.resolve("de_DE.properties");
+        var modified = Files.getLastModifiedTime(german);
+        Files.writeString(german, "test=Halli {0}\n");
+        Files.setLastModifiedTime(german, modified);
+        registry.reload();
+        assertTrue(MiniMessage.miniMessage().serialize(registry.render(Component.translatable("test", Component.text("Steve")), Locale.GERMANY)).contains("Halli Steve"));
+
+        Files.writeString(german, "test=Hallo {0}\nother=Andere\n");
+        registry.reload();
+        assertTrue(registry.contains("other", Locale.GERMANY));
+        assertTrue(registry.contains("quote", Locale.US));
+
+        Files.delete(german);
+        registry.reload();
+        assertFalse(registry.contains("other"));
+        assertTrue(registry.contains("test"));
+    }
+
+    @Test
+    void parallel(@TempDir Path folder) throws IOException {
+        for (int i = 0; i < 8; i++)
+            Files.writeString(folder.resolve("l" + i + ".properties"), "test=Test " + i + "\n");
+        Files.writeString(folder.resolve("en.properties"), "broken=\\u00\n");
+
+        var sequential = new KyoriTranslationRegistry();
+        var parallel = new KyoriTranslationRegistry();
+        assertFalse(new FileLoader(folder.toFile()).test(sequential));
+        assertFalse(new FileLoader(folder.toFile()).parallel(true).test(parallel));
+
+        Files.delete(folder.resolve("en.properties"));
+        sequential = new KyoriTranslationRegistry();
+        parallel = new KyoriTranslationRegistry();
+        assertTrue(new FileLoader(folder.toFile()).test(sequential));
+        assertTrue(new FileLoader(folder.toFile()).parallel(true).test(parallel));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void bundle(@TempDir Path folder, @TempDir Path output) throws IOException {
+        Files.writeString(folder.resolve("en_US.properties"), "test=<lang:other:{1}> {0}\nother=It's {0}\n");
+        Files.writeString(folder.resolve("de_DE.properties"), "test=Hallo {0}\n");
+        var bundle = output.resolve("translations.bin");
+
+        var parsed = new KyoriTranslationRegistry();
+        assertTrue(new FileLoader(folder.toFile()).bundle(bundle).test(parsed));
+        assertTrue(Files.exists(bundle));
+        assertTrue(TranslationBundle.open(bundle).upToDate(folder.toFile()));
+
+        var loaded = new KyoriTranslationRegistry();
+        TranslationBundle.open(bundle).registerAll(loaded);
+        assertEquals(parsed, loaded);
+
+        // same length and timestamp, like a quick fix on a file system with coarse timestamps
+        var german = folder.resolve("de_DE.properties");
+        var modified = Files.getLastModifiedTime(german);
+        Files.writeString(german, "test=Halli {0}\n");
+        Files.setLastModifiedTime(german, modified);
+        assertFalse(TranslationBundle.open(bundle).upToDate(folder.toFile()));
+
+        Files.writeString(german, "test=Hallo {0}\nother=Andere\n");
+        Files.setLastModifiedTime(german, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertFalse(TranslationBundle.open(bundle).upToDate(folder.toFile()));
+
+        var reloaded = new KyoriTranslationRegistry();
+        assertTrue(new FileLoader(folder.toFile()).bundle(bundle).test(reloaded));
+        assertEquals("Andere", reloaded.translate("other", Locale.GERMANY).getPattern());
+        assertTrue(TranslationBundle.open(bundle).upToDate(folder.toFile()));
+    }
+
+    @Test
+    void lazy(@TempDir Path folder) throws IOException {
+        Files.writeString(folder.resolve("en_US.properties"), "test=It's {0}\nbroken={99999999999}\n");
+
+        var eager = new KyoriTranslationRegistry();
+        assertFalse(new FileLoader(folder.toFile()).test(eager));
+
+        var lazy = new KyoriTranslationRegistry();
+        lazy.lazy(true);
+        assertTrue(new FileLoader(folder.toFile()).test(lazy));
+        assertEquals("It''s {0}", lazy.translate("test", Locale.US).getPattern());
+        assertThrows(IllegalArgumentException.class, lazy::validate);
+    }
+
+    @Test
+    void properties(@TempDir Path folder) throws IOException {
+        var content = """
+                # comment
+                ! other comment
+                  simple = It's {0}
+                colon:value
+                space value with spaces\\t
+                escaped\\ key=\\u0048ello \\'quoted\\'
+                multi=first \\
+                      second \\
+                  third
+                crlf=a\\r\\n\\f\r
+                empty
+                trailing=\\
+                """;
+        var file = folder.resolve("en.properties");
+        Files.writeString(file, content);
+
+        var streamed = new KyoriTranslationRegistry();
+        streamed.registerAll(Locale.ENGLISH, file, true);
+        var bundled = new KyoriTranslationRegistry();
+        bundled.registerAll(Locale.ENGLISH, new PropertyResourceBundle(new StringReader(content)), true);
+        assertEquals(bundled, streamed);
+        assertEquals("Hello ''quoted''", streamed.translate("escaped key", Locale.ENGLISH).getPattern());
+
+        Files.writeString(file, "test=Test\n\nbroken=\\u00\nother=Other\n");
+        var error = assertThrows(UncheckedIOException.class, () -> new KyoriTranslationRegistry().registerAll(Locale.ENGLISH, file, true));
+        assertTrue(error.getCause().getMessage().endsWith("en.properties:3: Malformed \\uxxxx encoding"), error.getCause().getMessage());
+
+        Files.writeString(file, "test=First\nother=Other\ntest=Second\n");
+        var registry = new KyoriTranslationRegistry();
+        registry.registerAll(Locale.ENGLISH, file, true);
+        assertEquals("Second", registry.translate("test", Locale.ENGLISH).getPattern());
+
+        Files.writeString(file, "test=Again\nnew=New\nother=Again\n");
+        var conflict = assertThrows(IllegalArgumentException.class, () -> registry.registerAll(Locale.ENGLISH, file, true));
+        assertEquals("Invalid key (and 1 more)", conflict.getMessage());
+        assertTrue(conflict.getCause().getMessage().startsWith(file + ":1: "), conflict.getCause().getMessage());
+        assertEquals("New", registry.translate("new", Locale.ENGLISH).getPattern());
+        assertEquals("Second", registry.translate("test", Locale.ENGLISH).getPattern());
+    }
+
+    @Test
+    void archive(@TempDir Path folder) throws IOException {
+        var jar = folder.resolve("plugin.jar");
+        try (var out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("lang/en_US.properties"));
+            out.write("test=It's {0}\n".getBytes());
+            out.putNextEntry(new ZipEntry("lang/de_DE.properties"));
+            out.write("test=Hallo {0}\n".getBytes());
+            out.putNextEntry(new ZipEntry("lang/nested/fr_FR.properties"));
+            out.write("test=Bonjour {0}\n".getBytes());
+            out.putNextEntry(new ZipEntry("plugin.yml"));
+            out.write("name: test\n".getBytes());
+        }
+
+        var registry = new KyoriTranslationRegistry();
+        assertTrue(TranslationRegistry.archiveLoader(jar, "lang").test(registry));
+        assertEquals("It''s {0}", registry.translate("test", Locale.US).getPattern());
+        assertEquals("Hallo {0}", registry.translate("test", Locale.GERMANY).getPattern());
+        assertEquals("It''s {0}", registry.translate("test", Locale.FRANCE).getPattern());
+        assertFalse(TranslationRegistry.archiveLoader(jar, "missing").test(new KyoriTranslationRegistry()));
+    }
+
+    @Test
+    void generate(@TempDir Path folder, @TempDir Path output) throws Exception {
+        Files.writeString(folder.resolve("en_US.properties"), "chat.join=<green>{0} joined <lang:chat.count:{1,number}>\nchat.count={0,number} \"players\"\n");
+        Files.writeString(folder.resolve("de_DE.properties"), "chat.join=<green>{0} ist beigetreten <lang:chat.count:{1,number}>\n");
+
+        var source = TranslationGenerator.generate(folder.toFile(), output, "generated.Messages", Locale.US);
+        assertTrue(Files.readString(source).contains("public static final String CHAT_JOIN = \"chat.join\";"));
+        compiled(folder, output, source, "generated.Messages");
+
+        Files.writeString(folder.resolve("de_DE.properties"), "chat.join=<green>ist beigetreten\nchat.leave=Tschuess\n");
+        var error = assertThrows(IllegalArgumentException.class, () -> TranslationGenerator.generate(folder.toFile(), output, "generated.Messages", Locale.US));
+        assertTrue(error.getMessage().endsWith("(and 1 more)"));
+    }
+
+    @Test
+    void generateLarge(@TempDir Path folder, @TempDir Path output) throws Exception {
+        // enough distinct patterns to overflow one constant pool and enough arguments to overflow one method
+        var arguments = new StringBuilder();
+        for (int i = 0; i < 40; i++)
+            arguments.append(" {").append(i).append('}');
+        for (int locale = 0; locale < 24; locale++) {
+            var content = new StringBuilder();
+            for (int key = 0; key < 1500; key++)
+                content.append("key").append(key).append("=Value ").append(locale).append(' ').append(key).append(key < 80 ? arguments : "").append('\n');
+            Files.writeString(folder.resolve("x" + (char) ('a' + locale) + ".properties"), content);
+        }
+
+        var source = TranslationGenerator.generate(folder.toFile(), output, "generated.Large", new Locale("xa"));
+        compiled(folder, output, source, "generated.Large");
+    }
+
+    private void compiled(Path folder, Path output, Path source, String className) throws Exception {
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-classpath", System.getProperty("java.class.path"), "-d", output.toString(), source.toString()));
+
+        var expected = new KyoriTranslationRegistry();
+        assertTrue(new FileLoader(folder.toFile()).test(expected));
+        try (var loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            @SuppressWarnings("unchecked")
+            var generated = (Predicate<KyoriTranslationRegistry>) loader.loadClass(className).getConstructor().newInstance();
+            var registry = new KyoriTranslationRegistry();
+            assertTrue(generated.test(registry));
+            assertEquals(expected, registry);
+        }
+    }
+}
@@ -1,15 +1,22 @@
 import de.crazydev22.translations.Format;
+import de.crazydev22.translations.KyoriTranslationRegistry;
 import de.crazydev22.translations.TranslationRegistry;
+import de.crazydev22.translations.TranslationStatistics;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslationArgument;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 class FormattingTest {
@@ -36,4 +43,378 @@ class FormattingTest {
         var serialized = mini.serialize(colored);
         assertEquals("<red><green>Test 2 \n<yellow>Hi <underlined>3</underlined></yellow> <red>1", serialized);
     }
+
+    @Test
+    void format() {
+        var format = new Format("<lang:test:{1}> {0} {} {5} {x}");
+        assertEquals("<lang:'test':'b'> a a {5} {x}", format.format("a", "b"));
+        assertEquals("<lang:'test':'{1}'> {0} {} {5} {x}", format.format());
+        assertEquals("> <lang:'test':'b'> a a {5} {x}", format.appendTo(new StringBuilder("> "), "a", "b", "c").toString());
+    }
+
+    @Test
+    void injection() {
+        var mini = MiniMessage.miniMessage();
+        var registry = new TranslationRegistry(mini, Locale.ROOT, r -> {
+            r.register("test", Locale.ROOT, new Format("<green>Hello {0}, <lang:test2:{0}>"));
+            r.register("test2", Locale.ROOT, new Format("bye {0}"));
+            return true;
+        });
+
+        var rendered = registry.render(Component.translatable("test", Component.text("<red>Steve")), Locale.ROOT);
+        assertEquals("<green>Hello \\<red>Steve, bye \\<red>Steve", mini.serialize(rendered));
+    }
+
+    @Test
+    void tagInjection() {
+        var mini = MiniMessage.miniMessage();
+        var registry = new TranslationRegistry(mini, Locale.ROOT, r -> {
+            r.register("quoted", Locale.ROOT, new Format("<hover:show_text:'{0}'>Hover me"));
+            r.register("unquoted", Locale.ROOT, new Format("<insert:{0}>Insert me"));
+            return true;
+        });
+
+        var name = Component.text("Steve'>\\<red>evil");
+        assertEquals("Hover me", plain(registry.render(Component.translatable("quoted", name), Locale.ROOT)));
+        assertEquals("Insert me", plain(registry.render(Component.translatable("unquoted", name), Locale.ROOT)));
+    }
+
+    @Test
+    void splittingTags() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.ROOT, r -> {
+            r.register("gradient", Locale.ROOT, new Format("<gradient:red:blue>Hi {0}</gradient>"));
+            r.register("rainbow", Locale.ROOT, new Format("<rainbow>{0} and {1}</rainbow>"));
+            return true;
+        });
+
+        assertEquals("Hi Steve", plain(registry.render(Component.translatable("gradient", Component.text("Steve")), Locale.ROOT)));
+        assertEquals("Steve and Alex", plain(registry.render(Component.translatable("rainbow", Component.text("Steve"), Component.text("Alex")), Locale.ROOT)));
+    }
+
+    private static String plain(Component component) {
+        var builder = new StringBuilder();
+        if (component instanceof TextComponent text) builder.append(text.content());
+        component.children().forEach(child -> builder.append(plain(child)));
+        return builder.toString();
+    }
+
+    @Test
+    void fallback() {
+        var portugal = new Locale("pt", "PT");
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("test", Locale.ENGLISH, new Format("en"));
+            r.register("test", portugal, new Format("pt"));
+            r.register("other", Locale.ENGLISH, new Format("en"));
+            return true;
+        });
+        registry.fallback(new Locale("pt", "BR"), portugal);
+
+        var brazil = new Locale("pt", "BR");
+        assertEquals(List.of(brazil, portugal, new Locale("pt"), Locale.US, Locale.ENGLISH), registry.fallbackChain(brazil));
+        assertTrue(registry.contains("other", brazil));
+        registry.reload();
+        assertEquals(List.of(brazil, portugal, new Locale("pt"), Locale.US, Locale.ENGLISH), registry.fallbackChain(brazil));
+    }
+
+    @Test
+    void cache() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.ROOT, r -> {
+            r.register("test", Locale.ROOT, new Format("<green>Hello {0}"));
+            return true;
+        });
+        registry.renderCache(16);
+        var cache = registry.renderCache();
+
+        var msg = Component.translatable("test", Component.text("Steve"));
+        var first = registry.render(msg, Locale.ROOT);
+        assertEquals(first, registry.render(msg, Locale.ROOT));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        registry.reload();
+        assertEquals(0, cache.size());
+        assertEquals(first, registry.render(msg, Locale.ROOT));
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void metrics() {
+        var statistics = new TranslationStatistics();
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("test", Locale.US, new Format("<green>Hello {0}"));
+            r.register("test", Locale.GERMAN, new Format("<green>Hallo {0}"));
+            return true;
+        });
+        registry.metrics(statistics);
+        registry.reload();
+
+        registry.render(Component.translatable("test", Component.text("Steve")), Locale.GERMANY);
+        registry.render(Component.translatable("missing"), Locale.GERMANY);
+
+        assertEquals(1, statistics.hits("test"));
+        assertEquals(1, statistics.misses("missing"));
+        assertEquals(1, statistics.fallbackDepths()[1]);
+        assertEquals(Set.of("test", "missing"), statistics.missingKeys().get(Locale.GERMANY));
+        assertEquals(1, statistics.parses());
+        assertEquals(1, statistics.reloads());
+        assertEquals(1, statistics.lastReloadKeys());
+        assertEquals(1, Arrays.stream(statistics.renderLatency()).sum());
+
+        for (int i = 0; i < 1000; i++)
+            registry.render(Component.translatable("missing"), new Locale("de", "X" + i));
+        assertEquals(1001, statistics.misses("missing"));
+        assertTrue(statistics.missingKeys().size() < 1000, "missing keys are tracked for every requested locale");
+    }
+
+    @Test
+    void renderAll() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("test", Locale.US, new Format("<green>Hello <lang:name:{0}>"));
+            r.register("test", Locale.GERMAN, new Format("<green>Hallo <lang:name:{0}>"));
+            r.register("name", Locale.US, new Format("{0}"));
+            r.register("name", Locale.GERMANY, new Format("Herr {0}"));
+            return true;
+        });
+
+        var msg = Component.translatable("test", Component.text("Steve"));
+        var locales = List.of(Locale.US, Locale.UK, Locale.GERMANY, new Locale("de", "AT"), Locale.JAPAN, Locale.US);
+        var rendered = registry.renderAll(msg, locales);
+
+        assertEquals(5, rendered.size());
+        for (var locale : locales)
+            assertEquals(registry.render(msg, locale), rendered.get(locale));
+        assertSame(rendered.get(Locale.US), rendered.get(Locale.JAPAN));
+        assertSame(rendered.get(Locale.US), rendered.get(Locale.UK));
+        assertNotSame(rendered.get(Locale.GERMANY), rendered.get(new Locale("de", "AT")));
+    }
+
+    @Test
+    void identity() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.ROOT, r -> {
+            r.register("test", Locale.ROOT, new Format("<green>Test"));
+            return true;
+        });
+
+        var lore = Component.text("Static lore", NamedTextColor.GRAY)
+                .append(Component.text(" line").hoverEvent(Component.text("hover")))
+                .append(Component.keybind("key.jump"));
+        assertSame(lore, registry.render(lore, Locale.ROOT));
+
+        var msg = Component.text().append(lore).append(Component.translatable("test")).build();
+        var rendered = registry.render(msg, Locale.ROOT);
+        assertNotSame(msg, rendered);
+        assertSame(lore, rendered.children().get(0));
+    }
+
+    @Test
+    void async() {
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.ROOT, r -> {
+            r.register("test", Locale.ROOT, new Format("<green>Hello {0}"));
+            return true;
+        });
+
+        var msg = Component.translatable("test", Component.text("Steve"));
+        var expected = registry.render(msg, Locale.ROOT);
+        assertEquals(expected, registry.renderAsync(msg, Locale.ROOT).join());
+        assertEquals(List.of(expected, expected), registry.renderAsync(List.of(msg, msg), Locale.ROOT).join());
+        assertEquals(expected, registry.renderAllAsync(msg, List.of(Locale.ROOT)).join().get(Locale.ROOT));
+    }
+
+    @Test
+    void compact() {
+        var registry = new KyoriTranslationRegistry();
+        registry.register("test", Locale.US, new Format("<green>Hello {0}"));
+        registry.register("test", Locale.UK, new Format("<green>Hello {0}"));
+        registry.register("test", Locale.GERMAN, new Format("<green>Hallo {0}"));
+        registry.register("other", Locale.US, new Format("Other"));
+        var expanded = new KyoriTranslationRegistry();
+        expanded.register("test", Locale.US, new Format("<green>Hello {0}"));
+        expanded.register("test", Locale.UK, new Format("<green>Hello {0}"));
+        expanded.register("test", Locale.GERMAN, new Format("<green>Hallo {0}"));
+        expanded.register("other", Locale.US, new Format("Other"));
+
+        registry.compact();
+        assertTrue(registry.compacted());
+        assertEquals(expanded, registry);
+        assertEquals(2, registry.size());
+        assertTrue(registry.contains("other"));
+        assertFalse(registry.contains("missing"));
+        assertTrue(registry.contains("other", Locale.JAPAN));
+        assertSame(registry.translate("test", Locale.US), registry.translate("test", Locale.UK));
+        assertEquals("<green>Hallo {0}", registry.translate("test", Locale.GERMANY).getPattern());
+        assertNull(registry.translate("missing", Locale.US));
+
+        registry.register("test", Locale.FRENCH, new Format("<green>Bonjour {0}"));
+        assertFalse(registry.compacted());
+        assertEquals(2, registry.size());
+        assertEquals("<green>Hallo {0}", registry.translate("test", Locale.GERMANY).getPattern());
+        assertEquals("<green>Bonjour {0}", registry.translate("test", Locale.FRANCE).getPattern());
+    }
+
+    @Test
+    void freeze() {
+        var brazil = new Locale("pt", "BR");
+        var portugal = new Locale("pt", "PT");
+        var registry = new KyoriTranslationRegistry();
+        registry.defaultLocale(Locale.US);
+        registry.fallback(brazil, portugal);
+        registry.register("test", Locale.ENGLISH, new Format("en"));
+        registry.register("test", portugal, new Format("pt"));
+        registry.register("test", Locale.GERMAN, new Format("de"));
+        registry.register("other", Locale.US, new Format("us"));
+        var expanded = new KyoriTranslationRegistry();
+        expanded.defaultLocale(Locale.US);
+        expanded.fallback(brazil, portugal);
+        expanded.register("test", Locale.ENGLISH, new Format("en"));
+        expanded.register("test", portugal, new Format("pt"));
+        expanded.register("test", Locale.GERMAN, new Format("de"));
+        expanded.register("other", Locale.US, new Format("us"));
+
+        registry.freeze();
+        assertTrue(registry.frozen());
+        assertEquals(expanded, registry);
+        assertEquals(2, registry.size());
+        assertTrue(registry.contains("other"));
+        assertFalse(registry.contains("missing"));
+        for (var locale : List.of(Locale.US, Locale.UK, Locale.GERMANY, new Locale("de", "AT"), brazil, portugal, Locale.JAPAN)) {
+            assertEquals(expanded.translate("test", locale), registry.translate("test", locale));
+            assertEquals(expanded.translate("other", locale), registry.translate("other", locale));
+        }
+        assertNull(registry.translate("missing", Locale.US));
+
+        registry.fallback(Locale.GERMAN, Locale.ENGLISH);
+        registry.register("other", Locale.GERMAN, new Format("de"));
+        assertFalse(registry.frozen());
+        registry.freeze();
+        assertEquals("de", registry.translate("other", Locale.GERMANY).getPattern());
+        registry.defaultLocale(Locale.GERMAN);
+        assertTrue(registry.frozen());
+        assertEquals("de", registry.translate("other", Locale.JAPAN).getPattern());
+    }
+
+    @Test
+    void typed() {
+        var format = new Format("{0,number} {0} {1,number,integer} {2,date,yyyy-MM-dd} {0,unknown}");
+        assertEquals("1,234.5 1234.5 3 {2,date,yyyy-MM-dd} {0,unknown}", format.format(Locale.US, 1234.5, 3.2));
+        assertEquals("1.234,5 1234.5 3 {2,date,yyyy-MM-dd} {0,unknown}", format.format(Locale.GERMANY, 1234.5, 3.2));
+        assertEquals("a a b {2,date,yyyy-MM-dd} {0,unknown}", format.format(Locale.GERMANY, "a", "b"));
+        assertEquals("a a b {2,date,yyyy-MM-dd} {0,unknown}", format.format("a", "b"));
+
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("coins", Locale.US, new Format("<gold>{0,number} coins"));
+            r.register("coins", Locale.GERMAN, new Format("<gold>{0,number} Muenzen"));
+            return true;
+        });
+        var msg = Component.translatable("coins", TranslationArgument.numeric(1000));
+        assertEquals("<gold>1,000 coins", MiniMessage.miniMessage().serialize(registry.render(msg, Locale.US)));
+        assertEquals("<gold>1.000 Muenzen", MiniMessage.miniMessage().serialize(registry.render(msg, Locale.GERMANY)));
+        assertEquals("<gold>1000 coins", MiniMessage.miniMessage().serialize(registry.render(Component.translatable("coins", Component.text(1000)), Locale.US)));
+
+        var shared = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("coins", Locale.US, new Format("<gold>{0,number} coins"));
+            return true;
+        });
+        var rendered = shared.renderAll(msg, List.of(Locale.US, Locale.GERMANY));
+        assertEquals("<gold>1,000 coins", MiniMessage.miniMessage().serialize(rendered.get(Locale.US)));
+        assertEquals("<gold>1.000 coins", MiniMessage.miniMessage().serialize(rendered.get(Locale.GERMANY)));
+        assertEquals(shared.render(msg, Locale.GERMANY), rendered.get(Locale.GERMANY));
+    }
+
+    @Test
+    void namespaces() {
+        var core = new AtomicInteger();
+        var shop = new AtomicInteger();
+        var registry = new TranslationRegistry(MiniMessage.miniMessage(), Locale.US, r -> {
+            r.register("core:test", Locale.US, new Format("Core " + core.incrementAndGet()));
+            return true;
+        });
+        registry.namespace("shop", r -> {
+            r.register("shop:test", Locale.US, new Format("Shop " + shop.incrementAndGet()));
+            return true;
+        });
+        assertEquals(Set.of("shop"), registry.namespaces());
+        assertTrue(registry.contains("core:test"));
+        assertTrue(registry.contains("shop:test"));
+
+        registry.reload("shop");
+        assertEquals(1, core.get());
+        assertEquals(2, shop.get());
+        assertEquals("Shop 2", MiniMessage.miniMessage().serialize(registry.render(Component.translatable("shop:test"), Locale.US)));
+        assertEquals("Core 1", MiniMessage.miniMessage().serialize(registry.render(Component.translatable("core:test"), Locale.US)));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.namespace("copy", r -> {
+            r.register("shop:test", Locale.US, new Format("Copy"));
+            return true;
+        }));
+        assertEquals(Set.of("shop"), registry.namespaces());
+        assertEquals("Shop 2", MiniMessage.miniMessage().serialize(registry.render(Component.translatable("shop:test"), Locale.US)));
+
+        registry.removeNamespace("shop");
+        assertFalse(registry.contains("shop:test"));
+        assertTrue(registry.contains("core:test"));
+        registry.reload();
+        assertEquals(2, core.get());
+        assertEquals(2, shop.get());
+    }
+
+    @Test
+    void nested() {
+        var mini = MiniMessage.miniMessage();
+        var registry = new TranslationRegistry(mini, Locale.ROOT, r -> {
+            r.register("a", Locale.ROOT, new Format("A <lang:b>"));
+            r.register("b", Locale.ROOT, new Format("B <lang:a>"));
+            r.register("greeting", Locale.ROOT, new Format("<lang:name> says {0}"));
+            r.register("name", Locale.ROOT, new Format("<red>Steve"));
+            return true;
+        });
+
+        assertTrue(mini.serialize(assertDoesNotThrow(() -> registry.render(Component.translatable("a"), Locale.ROOT))).startsWith("A B "));
+
+        var msg = Component.translatable("greeting", Component.text("hi"));
+        var rendered = registry.render(msg, Locale.ROOT);
+        assertTrue(mini.serialize(rendered).matches(".*Steve.* says hi"));
+        assertEquals(rendered, registry.render(msg, Locale.ROOT));
+
+        registry.maxDepth(1);
+        assertFalse(mini.serialize(registry.render(msg, Locale.ROOT)).contains("Steve"));
+    }
+
+    @Test
+    void statics() {
+        var mini = MiniMessage.miniMessage();
+        var generation = new AtomicInteger();
+        var registry = new TranslationRegistry(mini, Locale.ROOT, r -> {
+            r.register("title", Locale.ROOT, new Format("<gold>Shop " + generation.incrementAndGet()));
+            return true;
+        });
+
+        var msg = Component.translatable("title").color(NamedTextColor.RED).append(Component.text("!"));
+        var first = registry.render(msg, Locale.ROOT);
+        var second = registry.render(Component.translatable("title"), Locale.ROOT);
+        assertSame(first.children().get(0), second.children().get(0));
+        assertEquals(NamedTextColor.RED, first.color());
+        assertNull(second.color());
+        assertTrue(mini.serialize(first).matches(".*Shop 1.*!.*"));
+
+        registry.reload();
+        assertTrue(mini.serialize(registry.render(msg, Locale.ROOT)).contains("Shop 2"));
+    }
+
+    @Test
+    void manyLocales() {
+        var mini = MiniMessage.miniMessage();
+        var registry = new TranslationRegistry(mini, Locale.US, r -> {
+            r.register("title", Locale.US, new Format("Shop"));
+            r.register("title", Locale.GERMAN, new Format("Laden"));
+            return true;
+        });
+        for (boolean frozen : new boolean[]{false, true}) {
+            registry.freeze(frozen);
+            for (int i = 0; i < 1000; i++) {
+                var locale = new Locale("de", "X" + i);
+                assertEquals(List.of(locale, Locale.GERMAN, Locale.US, Locale.ENGLISH), registry.fallbackChain(locale));
+                assertTrue(mini.serialize(registry.render(Component.translatable("title"), locale)).contains("Laden"));
+            }
+        }
+    }
 }